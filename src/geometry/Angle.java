@@ -6,12 +6,35 @@ package geometry;
 
  * Angle class to represent
  * and calculate with angles.
+ * An Angle is stored as a unit complex number (cos, sin),
+ * so rotations are plain multiply-add operations.
  * This class is immutable.
  */
 
 public class Angle {
 
+    // ***** STATIC FIELDS *****
+
+    /**
+     * Precomputed Angles for each multiple of 45 degrees,
+     * index k is k * 45 degrees. Cosinus and sinus are exact
+     * (0, 1, -1 or sqrt(2) / 2) so rotated grid points stay aligned.
+     */
+    private static final Angle[] OCTANTS = {
+            new Angle(1, 0, 0),
+            new Angle(Math.sqrt(0.5), Math.sqrt(0.5), 45),
+            new Angle(0, 1, 90),
+            new Angle(-Math.sqrt(0.5), Math.sqrt(0.5), 135),
+            new Angle(-1, 0, 180),
+            new Angle(-Math.sqrt(0.5), -Math.sqrt(0.5), -135),
+            new Angle(0, -1, -90),
+            new Angle(Math.sqrt(0.5), -Math.sqrt(0.5), -45)
+    };
+
+
     // ***** FIELDS *****
+    private final double cos;
+    private final double sin;
     private final double degrees;
 
 
@@ -19,12 +42,35 @@ public class Angle {
 
     /**
      * Construct a new Angle from two coordinates x and y.
+     * The vector (dx, dy) is normalized into the cached cosinus and sinus,
+     * and the value in degrees is computed once.
+     * A null vector gives an Angle of 0 degrees, like Math.atan2(0, 0).
      * @param dx a double x coordinates in a Cartesian plan.
      * @param dy a double y coordinates in a Cartesian plan.
      */
     public Angle(double dx, double dy) {
-        double radian = Math.atan2(dy, dx);
-        degrees = Math.toDegrees(radian);
+        double length = Math.hypot(dx, dy);
+        if (length == 0) {
+            cos = 1;
+            sin = 0;
+            degrees = 0;
+        } else {
+            cos = dx / length;
+            sin = dy / length;
+            degrees = Math.toDegrees(Math.atan2(dy, dx));
+        }
+    }
+
+    /**
+     * Construct a new Angle from an already normalized cosinus and sinus.
+     * @param cos the cosinus of the Angle.
+     * @param sin the sinus of the Angle.
+     * @param degrees the value in degrees between -180 and 180.
+     */
+    private Angle(double cos, double sin, double degrees) {
+        this.cos = cos;
+        this.sin = sin;
+        this.degrees = degrees;
     }
 
 
@@ -33,13 +79,16 @@ public class Angle {
     /**
      * Factory method returns a new Angle
      * from a double degree parameter.
+     * Multiples of 45 degrees are taken from the precomputed table.
      * @param value a double value which represents degrees.
      * @return a new Angle from degrees value.
      */
     public static Angle inDegrees(double value) {
-        double dx = Math.cos(Math.toRadians(value));
-        double dy = Math.sin(Math.toRadians(value));
-        return new Angle(dx, dy);
+        if (value % 45 == 0 && Math.abs(value) < Integer.MAX_VALUE) {
+            return octant((int) (value / 45));
+        }
+        double radian = Math.toRadians(value);
+        return new Angle(Math.cos(radian), Math.sin(radian), normalize(value));
     }
 
     /**
@@ -49,9 +98,29 @@ public class Angle {
      * @return a new Angle from radians value.
      */
     public static Angle inRadians(double value) {
-        double dx = Math.cos(value);
-        double dy = Math.sin(value);
-        return new Angle(dx, dy);
+        return new Angle(Math.cos(value), Math.sin(value), normalize(Math.toDegrees(value)));
+    }
+
+    /**
+     * Factory method returns the precomputed Angle of k * 45 degrees.
+     * @param k the number of 45 degrees steps, negative values are clockwise.
+     * @return the Angle of k * 45 degrees.
+     */
+    public static Angle octant(int k) {
+        return OCTANTS[Math.floorMod(k, OCTANTS.length)];
+    }
+
+    /**
+     * Bring a value in degrees between -180 (excluded) and 180 (included),
+     * like the values returned by Math.atan2().
+     * @param value a double value which represents degrees.
+     * @return the same Angle value between -180 and 180.
+     */
+    private static double normalize(double value) {
+        double d = value % 360;
+        if (d > 180) d -= 360;
+        else if (d <= -180) d += 360;
+        return d;
     }
 
 
@@ -70,48 +139,52 @@ public class Angle {
      * @return the double value of the current Angle in radians.
      */
     public double getRadians() {
-        return Math.toRadians(degrees);
+        return Math.toRadians(getDegrees());
     }
 
 
     // ***** METHODS *****
 
     /**
-     * Return the double value of the sinus function from java.lang.Math.
-     * Values of sin(180) and sin(360) are rounded to 0.
+     * Return the cached value of the sinus of the current Angle.
      * @return the double value of the sinus of the current Angle.
      */
     public double sin() {
-        if (degrees == 180 || degrees == 360) return 0;
-        else return Math.sin(Math.toRadians(degrees));
+        return sin;
     }
 
     /**
-     * Return the double value of the cosinus from java.lang.Math.
-     * Values of cos(90) and cos(270) are rounded to 0.
+     * Return the cached value of the cosinus of the current Angle.
      * @return the double value of the cosinus of the current Angle.
      */
     public double cos() {
-        if (degrees == 90 || degrees == 270) return 0;
-        else return Math.cos(Math.toRadians(degrees));
+        return cos;
     }
 
     /**
      * Addition the current Angle with the value of another one.
+     * Computed as a complex multiplication, without any trigonometric function.
      * @param other another Angle to add.
      * @return a new Angle from the sum of the current Angle and the other one.
      */
     public Angle plus(Angle other) {
-        return inDegrees(degrees + other.getDegrees());
+        return new Angle(
+                cos * other.cos - sin * other.sin,
+                sin * other.cos + cos * other.sin,
+                normalize(degrees + other.degrees));
     }
 
     /**
      * Subtract the current Angle with the value of another one.
+     * Computed as a multiplication with the complex conjugate of the other Angle.
      * @param other another Angle to subtract.
      * @return a new Angle from the subtraction of the current Angle and the other one.
      */
     public Angle minus(Angle other) {
-        return inDegrees(degrees - other.getDegrees());
+        return new Angle(
+                cos * other.cos + sin * other.sin,
+                sin * other.cos - cos * other.sin,
+                normalize(degrees - other.degrees));
     }
 
     /**
@@ -120,7 +193,7 @@ public class Angle {
      * @return a new Angle from the multiplication of the current Angle and the factor.
      */
     public Angle multiply(double factor) {
-        return inDegrees(degrees * factor);
+        return inDegrees(getDegrees() * factor);
     }
 
     /**
@@ -131,7 +204,7 @@ public class Angle {
     @Override
     public String toString() {
         return "Angle{" +
-                "degrees=" + degrees +
+                "degrees=" + getDegrees() +
                 '}';
     }
 
@@ -0,0 +1,119 @@
+package geometry;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * Clipping class with static area algorithms on closed outlines :
+ * shoelace area and Sutherland-Hodgman clipping by a convex outline.
+ * The outlines are never modified.
+ */
+
+public final class Clipping {
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Private constructor : this class only has static methods.
+     */
+    private Clipping() {}
+
+
+    // ***** STATIC METHODS *****
+
+    /**
+     * Compute the signed area of a closed outline with the shoelace formula.
+     * In the View coordinates (y-axe going down), clockwise outlines are positive.
+     * @param outline the vertices of a closed outline.
+     * @return the signed area of the outline.
+     */
+    public static double signedArea(VertexBuffer outline) {
+        int n = outline.size();
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            int next = i == n - 1 ? 0 : i + 1;
+            sum += outline.getX(i) * outline.getY(next) - outline.getX(next) * outline.getY(i);
+        }
+        return sum / 2;
+    }
+
+    /**
+     * Compute the area of a closed outline with the shoelace formula.
+     * @param outline the vertices of a closed outline.
+     * @return the area of the outline.
+     */
+    public static double area(VertexBuffer outline) {
+        return Math.abs(signedArea(outline));
+    }
+
+    /**
+     * Compute the area of the intersection of an outline with a convex outline.
+     * The subject is clipped by each edge of the convex outline (Sutherland-Hodgman).
+     * The subject can be concave : the clipped outline may then have
+     * degenerate edges along the convex outline, which do not change its area.
+     * @param subject the vertices of the closed outline to clip.
+     * @param convex the vertices of a convex outline.
+     * @return the area of the intersection.
+     */
+    public static double intersectionArea(VertexBuffer subject, VertexBuffer convex) {
+        int m = convex.size();
+        int size = subject.size();
+        double[] xs = new double[size];
+        double[] ys = new double[size];
+        double[] nextXs = new double[2 * size];
+        double[] nextYs = new double[2 * size];
+        for (int i = 0; i < size; i++) {
+            xs[i] = subject.getX(i);
+            ys[i] = subject.getY(i);
+        }
+        double orientation = Math.signum(signedArea(convex));
+        if (orientation == 0) return 0;
+
+        for (int e = 0; e < m && size > 0; e++) {
+            int f = e == m - 1 ? 0 : e + 1;
+            // Each subject edge adds at most two vertices to the clipped outline
+            if (nextXs.length < 2 * size) {
+                nextXs = new double[2 * size];
+                nextYs = new double[2 * size];
+            }
+            double ex = convex.getX(e);
+            double ey = convex.getY(e);
+            double dx = convex.getX(f) - ex;
+            double dy = convex.getY(f) - ey;
+            int nextSize = 0;
+            for (int i = 0; i < size; i++) {
+                int j = i == size - 1 ? 0 : i + 1;
+                double si = orientation * (dx * (ys[i] - ey) - dy * (xs[i] - ex));
+                double sj = orientation * (dx * (ys[j] - ey) - dy * (xs[j] - ex));
+                boolean inI = si >= 0;
+                boolean inJ = sj >= 0;
+                if (inI) {
+                    nextXs[nextSize] = xs[i];
+                    nextYs[nextSize] = ys[i];
+                    nextSize++;
+                }
+                if (inI != inJ) {
+                    double t = si / (si - sj);
+                    nextXs[nextSize] = xs[i] + t * (xs[j] - xs[i]);
+                    nextYs[nextSize] = ys[i] + t * (ys[j] - ys[i]);
+                    nextSize++;
+                }
+            }
+            double[] tmpX = xs;
+            double[] tmpY = ys;
+            xs = nextXs;
+            ys = nextYs;
+            nextXs = tmpX;
+            nextYs = tmpY;
+            size = nextSize;
+        }
+
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            int j = i == size - 1 ? 0 : i + 1;
+            sum += xs[i] * ys[j] - xs[j] * ys[i];
+        }
+        return Math.abs(sum / 2);
+    }
+
+}
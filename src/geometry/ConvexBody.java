@@ -0,0 +1,199 @@
+package geometry;
+
+import java.util.Arrays;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * ConvexBody class : an immutable snapshot of a convex outline
+ * prepared for the separating axis theorem (SAT).
+ * The unit edge normals (the candidate separating axes) are
+ * computed once, parallel edges share the same axis.
+ * Use SatCollider to test two bodies.
+ */
+
+public class ConvexBody {
+
+    // ***** FIELDS *****
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] axisX;
+    private final double[] axisY;
+    private final double centerX;
+    private final double centerY;
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct a ConvexBody from the vertices of a convex outline.
+     * The coordinates are copied.
+     * @param outline the vertices of a convex outline.
+     */
+    public ConvexBody(VertexBuffer outline) {
+        int n = outline.size();
+        xs = new double[n];
+        ys = new double[n];
+        double[] ax = new double[n];
+        double[] ay = new double[n];
+        int axes = 0;
+        double sumX = 0, sumY = 0;
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            xs[i] = outline.getX(i);
+            ys[i] = outline.getY(i);
+            sumX += xs[i];
+            sumY += ys[i];
+            x0 = Math.min(x0, xs[i]);
+            y0 = Math.min(y0, ys[i]);
+            x1 = Math.max(x1, xs[i]);
+            y1 = Math.max(y1, ys[i]);
+        }
+        for (int i = 0; i < n; i++) {
+            int next = i == n - 1 ? 0 : i + 1;
+            double nx = -(ys[next] - ys[i]);
+            double ny = xs[next] - xs[i];
+            double length = Math.hypot(nx, ny);
+            if (length == 0) continue;
+            nx /= length;
+            ny /= length;
+            boolean parallel = false;
+            for (int k = 0; k < axes && !parallel; k++) {
+                parallel = Math.abs(ax[k] * ny - ay[k] * nx) < 1e-12;
+            }
+            if (!parallel) {
+                ax[axes] = nx;
+                ay[axes] = ny;
+                axes++;
+            }
+        }
+        axisX = Arrays.copyOf(ax, axes);
+        axisY = Arrays.copyOf(ay, axes);
+        centerX = n == 0 ? 0 : sumX / n;
+        centerY = n == 0 ? 0 : sumY / n;
+        minX = x0;
+        minY = y0;
+        maxX = x1;
+        maxY = y1;
+    }
+
+
+    // ***** STATIC METHODS *****
+
+    /**
+     * Check if a closed outline is convex :
+     * all the cross products of consecutive edges have the same sign.
+     * Collinear consecutive edges are accepted.
+     * @param outline the vertices of a closed outline.
+     * @return true if the outline is convex.
+     */
+    public static boolean isConvex(VertexBuffer outline) {
+        int n = outline.size();
+        if (n < 3) return false;
+        int sign = 0;
+        for (int i = 0; i < n; i++) {
+            int j = (i + 1) % n;
+            int k = (i + 2) % n;
+            double cross = (outline.getX(j) - outline.getX(i)) * (outline.getY(k) - outline.getY(j))
+                    - (outline.getY(j) - outline.getY(i)) * (outline.getX(k) - outline.getX(j));
+            if (cross == 0) continue;
+            int s = cross > 0 ? 1 : -1;
+            if (sign == 0) sign = s;
+            else if (s != sign) return false;
+        }
+        return sign != 0;
+    }
+
+
+    // ***** GETTERS *****
+
+    /**
+     * Get the number of separating axes.
+     * @return the number of separating axes.
+     */
+    public int getAxisCount() { return axisX.length; }
+
+    /**
+     * Get the x component of a unit separating axis.
+     * @param i the axis index.
+     * @return the x component of the axis.
+     */
+    public double getAxisX(int i) { return axisX[i]; }
+
+    /**
+     * Get the y component of a unit separating axis.
+     * @param i the axis index.
+     * @return the y component of the axis.
+     */
+    public double getAxisY(int i) { return axisY[i]; }
+
+    /**
+     * Get the x coordinates of the center (mean of the vertices).
+     * @return the x coordinates of the center.
+     */
+    public double getCenterX() { return centerX; }
+
+    /**
+     * Get the y coordinates of the center (mean of the vertices).
+     * @return the y coordinates of the center.
+     */
+    public double getCenterY() { return centerY; }
+
+    /**
+     * Get the left side of the bounding box.
+     * @return the left side of the bounding box.
+     */
+    public double getMinX() { return minX; }
+
+    /**
+     * Get the top side of the bounding box.
+     * @return the top side of the bounding box.
+     */
+    public double getMinY() { return minY; }
+
+    /**
+     * Get the right side of the bounding box.
+     * @return the right side of the bounding box.
+     */
+    public double getMaxX() { return maxX; }
+
+    /**
+     * Get the bottom side of the bounding box.
+     * @return the bottom side of the bounding box.
+     */
+    public double getMaxY() { return maxY; }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Projection of the body on an axis : smallest dot product.
+     * @param nx the x component of the axis.
+     * @param ny the y component of the axis.
+     * @return the smallest projection of a vertex.
+     */
+    double projectMin(double nx, double ny) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < xs.length; i++) min = Math.min(min, xs[i] * nx + ys[i] * ny);
+        return min;
+    }
+
+    /**
+     * Projection of the body on an axis : biggest dot product.
+     * @param nx the x component of the axis.
+     * @param ny the y component of the axis.
+     * @return the biggest projection of a vertex.
+     */
+    double projectMax(double nx, double ny) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < xs.length; i++) max = Math.max(max, xs[i] * nx + ys[i] * ny);
+        return max;
+    }
+
+}
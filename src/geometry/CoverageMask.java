@@ -0,0 +1,238 @@
+package geometry;
+
+import java.util.Arrays;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * CoverageMask class : a bitmap of a board stored in long words.
+ * The board is divided in square cells of size step, and each cell
+ * in 4 triangles by its diagonals (top, right, bottom, left) :
+ * one bit per triangle. An outline whose vertices are on the step grid
+ * and whose edges are horizontal, vertical or at 45 degrees covers
+ * whole triangles only, so its bit count times getBitArea() is its exact area.
+ * A mask can cover only a range of words (the rows of an outline),
+ * the board layout is shared by all the masks created from the same board.
+ */
+
+public class CoverageMask {
+
+    // ***** CONSTANTS *****
+    private static final int TOP = 0;
+    private static final int RIGHT = 1;
+    private static final int BOTTOM = 2;
+    private static final int LEFT = 3;
+
+    // ***** FIELDS *****
+    private final double originX;
+    private final double originY;
+    private final double step;
+    private final int cols;
+    private final int rows;
+    private final int firstWord;
+    private final long[] words;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct an empty CoverageMask of a whole board.
+     * @param originX the x coordinates of the board top-left corner.
+     * @param originY the y coordinates of the board top-left corner.
+     * @param step the size of a square cell.
+     * @param cols the number of cells on the x-axe.
+     * @param rows the number of cells on the y-axe.
+     */
+    public CoverageMask(double originX, double originY, double step, int cols, int rows) {
+        this.originX = originX;
+        this.originY = originY;
+        this.step = step;
+        this.cols = cols;
+        this.rows = rows;
+        this.firstWord = 0;
+        this.words = new long[wordIndex(rows * cols * 4 - 1) + 1];
+    }
+
+    /**
+     * Construct an empty CoverageMask with the same board as another one,
+     * covering only a range of words.
+     * @param board the mask giving the board layout.
+     * @param firstWord the index of the first word.
+     * @param wordCount the number of words.
+     */
+    private CoverageMask(CoverageMask board, int firstWord, int wordCount) {
+        this.originX = board.originX;
+        this.originY = board.originY;
+        this.step = board.step;
+        this.cols = board.cols;
+        this.rows = board.rows;
+        this.firstWord = firstWord;
+        this.words = new long[wordCount];
+    }
+
+
+    // ***** GETTERS *****
+
+    /**
+     * Get the area of the triangle represented by one bit.
+     * @return the area of one bit.
+     */
+    public double getBitArea() {
+        return step * step / 4;
+    }
+
+    /**
+     * Count the bits set in the mask.
+     * @return the number of bits set.
+     */
+    public int cardinality() {
+        int count = 0;
+        for (long word : words) count += Long.bitCount(word);
+        return count;
+    }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Create the mask of a closed outline on the same board as the current mask.
+     * The outline is scanned on the 3 sample rows of the cell triangles centers
+     * with the even-odd rule. Parts outside the board are ignored.
+     * @param outline the vertices of a closed outline.
+     * @return a new CoverageMask covering only the rows of the outline.
+     */
+    public CoverageMask rasterize(VertexBuffer outline) {
+        int n = outline.size();
+        double minY = Double.POSITIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            minY = Math.min(minY, outline.getY(i));
+            maxY = Math.max(maxY, outline.getY(i));
+        }
+        int rowFrom = Math.max(0, (int) Math.floor((minY - originY) / step));
+        int rowTo = Math.min(rows - 1, (int) Math.floor((maxY - originY) / step));
+        if (rowFrom > rowTo) return new CoverageMask(this, 0, 0);
+        int first = wordIndex(rowFrom * cols * 4);
+        int last = wordIndex((rowTo + 1) * cols * 4 - 1);
+        CoverageMask mask = new CoverageMask(this, first, last - first + 1);
+
+        double[] crossings = new double[n];
+        for (int row = rowFrom; row <= rowTo; row++) {
+            mask.scan(outline, crossings, row, 1.0 / 6, 0.5, TOP, -1, 0);
+            mask.scan(outline, crossings, row, 0.5, 1.0 / 6, LEFT, 5.0 / 6, RIGHT);
+            mask.scan(outline, crossings, row, 5.0 / 6, 0.5, BOTTOM, -1, 0);
+        }
+        return mask;
+    }
+
+    /**
+     * Scan one sample row : find the outline crossings and set the bits
+     * of the triangles whose center is between two crossings.
+     * @param outline the vertices of the outline.
+     * @param crossings a buffer for the crossings.
+     * @param row the cell row.
+     * @param dy the sample y position inside the cell (in cell units).
+     * @param dx1 the sample x position of the first triangle (in cell units).
+     * @param q1 the first triangle.
+     * @param dx2 the sample x position of the second triangle, or -1 if none.
+     * @param q2 the second triangle.
+     */
+    private void scan(VertexBuffer outline, double[] crossings, int row,
+                      double dy, double dx1, int q1, double dx2, int q2) {
+        int n = outline.size();
+        double y = originY + (row + dy) * step;
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            int j = i == n - 1 ? 0 : i + 1;
+            double yi = outline.getY(i);
+            double yj = outline.getY(j);
+            if ((yi > y) != (yj > y)) {
+                double t = (y - yi) / (yj - yi);
+                crossings[count++] = outline.getX(i) + t * (outline.getX(j) - outline.getX(i));
+            }
+        }
+        Arrays.sort(crossings, 0, count);
+        for (int k = 0; k + 1 < count; k += 2) {
+            // Cell units relative to the board
+            double from = (crossings[k] - originX) / step;
+            double to = (crossings[k + 1] - originX) / step;
+            fillSpan(row, from, to, dx1, q1);
+            if (dx2 >= 0) fillSpan(row, from, to, dx2, q2);
+        }
+    }
+
+    /**
+     * Set the bits of the triangles q of a row whose sample x is between from and to.
+     */
+    private void fillSpan(int row, double from, double to, double dx, int q) {
+        int colFrom = Math.max(0, (int) Math.ceil(from - dx));
+        int colTo = Math.min(cols - 1, (int) Math.ceil(to - dx) - 1);
+        for (int col = colFrom; col <= colTo; col++) {
+            int bit = ((row * cols + col) << 2) + q;
+            words[wordIndex(bit) - firstWord] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Remove all the bits of the mask.
+     */
+    public void clear() {
+        Arrays.fill(words, 0);
+    }
+
+    /**
+     * Add the bits of another mask of the same board (OR).
+     * The other mask must be inside the word range of the current one.
+     * @param other another mask.
+     */
+    public void or(CoverageMask other) {
+        for (int i = 0; i < other.words.length; i++) words[other.firstWord + i - firstWord] |= other.words[i];
+    }
+
+    /**
+     * Check if the current mask and another one have a common bit (AND).
+     * @param other another mask of the same board.
+     * @return true if at least one bit is set in both masks.
+     */
+    public boolean intersects(CoverageMask other) {
+        int from = Math.max(firstWord, other.firstWord);
+        int to = Math.min(firstWord + words.length, other.firstWord + other.words.length);
+        for (int w = from; w < to; w++) {
+            if ((words[w - firstWord] & other.words[w - other.firstWord]) != 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Count the bits set in both masks (AND).
+     * @param other another mask of the same board.
+     * @return the number of common bits.
+     */
+    public int andCardinality(CoverageMask other) {
+        int from = Math.max(firstWord, other.firstWord);
+        int to = Math.min(firstWord + words.length, other.firstWord + other.words.length);
+        int count = 0;
+        for (int w = from; w < to; w++) {
+            count += Long.bitCount(words[w - firstWord] & other.words[w - other.firstWord]);
+        }
+        return count;
+    }
+
+    /**
+     * Count the bits set in only one of the masks (XOR).
+     * @param other another mask of the same board.
+     * @return the number of different bits, zero if both masks are equal.
+     */
+    public int xorCardinality(CoverageMask other) {
+        return cardinality() + other.cardinality() - 2 * andCardinality(other);
+    }
+
+    /**
+     * Get the index of the word storing a bit.
+     */
+    private static int wordIndex(int bit) {
+        return bit >> 6;
+    }
+
+}
@@ -96,10 +96,12 @@ public class Point {
      * @param center a center Point from where the rotation starts.
      */
     public void rotate(Angle angle, Point center) {
+        double cos = angle.cos();
+        double sin = angle.sin();
         double dx = x - center.x;
         double dy = y - center.y;
-        x = center.x + dx * angle.cos() - dy * angle.sin();
-        y = center.y + dx * angle.sin() + dy * angle.cos();
+        x = center.x + dx * cos - dy * sin;
+        y = center.y + dx * sin + dy * cos;
     }
 
     /**
@@ -0,0 +1,213 @@
+package geometry;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * SatCollider class with static collision tests between ConvexBody objects,
+ * using the separating axis theorem : two convex outlines do not overlap
+ * if and only if their projections are disjoint on one of their edge normals.
+ * Unlike the segment crossing test, it also detects a body
+ * lying entirely inside another one.
+ */
+
+public final class SatCollider {
+
+    // ***** NESTED CLASSES *****
+
+    /**
+     * Contact class : result of a collision between two bodies.
+     * This class is immutable.
+     */
+    public static class Contact {
+
+        private final double depth;
+        private final double mtvX;
+        private final double mtvY;
+
+        /**
+         * Construct a Contact.
+         * @param depth the overlap depth along the minimum translation axis.
+         * @param mtvX the x component of the minimum translation vector.
+         * @param mtvY the y component of the minimum translation vector.
+         */
+        private Contact(double depth, double mtvX, double mtvY) {
+            this.depth = depth;
+            this.mtvX = mtvX;
+            this.mtvY = mtvY;
+        }
+
+        /**
+         * Get the overlap depth.
+         * @return the overlap depth.
+         */
+        public double getDepth() { return depth; }
+
+        /**
+         * Get the minimum translation Vector : the shortest move
+         * of the first body that separates it from the second one.
+         * @return the minimum translation Vector.
+         */
+        public Vector getTranslation() { return new Vector(mtvX, mtvY); }
+
+        /**
+         * Return a String with the Contact values.
+         * This method toString() is override from Object class.
+         * @return a String with the Contact values.
+         */
+        @Override
+        public String toString() {
+            return "Contact{" +
+                    "depth=" + depth +
+                    ", mtv=(" + mtvX + ", " + mtvY + ")" +
+                    '}';
+        }
+    }
+
+    /**
+     * Visitor receiving each pair of overlapping bodies.
+     */
+    public interface PairVisitor {
+
+        /**
+         * Called for each pair of overlapping bodies.
+         * @param first the index of the first body.
+         * @param second the index of the second body.
+         * @param depth the overlap depth.
+         * @return true to continue, false to stop.
+         */
+        boolean overlap(int first, int second, double depth);
+    }
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Private constructor : this class only has static methods.
+     */
+    private SatCollider() {}
+
+
+    // ***** STATIC METHODS *****
+
+    /**
+     * Compute the overlap depth of two bodies along the axis of minimum overlap.
+     * Stops at the first separating axis.
+     * @param a the first body.
+     * @param b the second body.
+     * @return the overlap depth, zero if the bodies only touch, negative if they are separated.
+     */
+    public static double depth(ConvexBody a, ConvexBody b) {
+        double depth = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < a.getAxisCount() + b.getAxisCount(); i++) {
+            double d = axisDepth(a, b, i);
+            if (d <= 0) return d;
+            depth = Math.min(depth, d);
+        }
+        return depth;
+    }
+
+    /**
+     * Compute the Contact between two bodies.
+     * @param a the first body.
+     * @param b the second body.
+     * @return the Contact with the minimum translation vector of a, or null if they do not overlap.
+     */
+    public static Contact collide(ConvexBody a, ConvexBody b) {
+        double depth = Double.POSITIVE_INFINITY;
+        int best = -1;
+        for (int i = 0; i < a.getAxisCount() + b.getAxisCount(); i++) {
+            double d = axisDepth(a, b, i);
+            if (d <= 0) return null;
+            if (d < depth) {
+                depth = d;
+                best = i;
+            }
+        }
+        if (best < 0) return null;
+        double nx = axisX(a, b, best);
+        double ny = axisY(a, b, best);
+        // The translation pushes a away from b
+        double toA = (a.getCenterX() - b.getCenterX()) * nx + (a.getCenterY() - b.getCenterY()) * ny;
+        if (toA < 0) {
+            nx = -nx;
+            ny = -ny;
+        }
+        return new Contact(depth, nx * depth, ny * depth);
+    }
+
+    /**
+     * Batch mode : report every pair of bodies overlapping deeper than a tolerance.
+     * Bodies are sorted by the left side of their bounding box and only the pairs
+     * whose bounding boxes overlap are tested with the separating axis theorem.
+     * @param bodies the bodies to test.
+     * @param tolerance the depth under which two bodies are considered as touching.
+     * @param visitor the visitor called for each overlapping pair, it can stop the search.
+     * @return the number of overlapping pairs reported.
+     */
+    public static int forEachOverlap(List<ConvexBody> bodies, double tolerance, PairVisitor visitor) {
+        int n = bodies.size();
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (i, j) -> Double.compare(bodies.get(i).getMinX(), bodies.get(j).getMinX()));
+        int count = 0;
+        for (int k = 0; k < n; k++) {
+            ConvexBody a = bodies.get(order[k]);
+            for (int l = k + 1; l < n; l++) {
+                ConvexBody b = bodies.get(order[l]);
+                if (b.getMinX() > a.getMaxX()) break;
+                if (b.getMinY() > a.getMaxY() || b.getMaxY() < a.getMinY()) continue;
+                double depth = depth(a, b);
+                if (depth > tolerance) {
+                    count++;
+                    int first = Math.min(order[k], order[l]);
+                    int second = Math.max(order[k], order[l]);
+                    if (!visitor.overlap(first, second, depth)) return count;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Batch mode : check if at least one pair of bodies overlaps deeper than a tolerance.
+     * @param bodies the bodies to test.
+     * @param tolerance the depth under which two bodies are considered as touching.
+     * @return true at the first overlapping pair found.
+     */
+    public static boolean anyOverlap(List<ConvexBody> bodies, double tolerance) {
+        return forEachOverlap(bodies, tolerance, (first, second, depth) -> false) > 0;
+    }
+
+    /**
+     * Overlap of the two projections on the axis i
+     * (axes of a first, then axes of b).
+     */
+    private static double axisDepth(ConvexBody a, ConvexBody b, int i) {
+        double nx = axisX(a, b, i);
+        double ny = axisY(a, b, i);
+        double minA = a.projectMin(nx, ny);
+        double maxA = a.projectMax(nx, ny);
+        double minB = b.projectMin(nx, ny);
+        double maxB = b.projectMax(nx, ny);
+        return Math.min(maxA - minB, maxB - minA);
+    }
+
+    /**
+     * Get the x component of the axis i.
+     */
+    private static double axisX(ConvexBody a, ConvexBody b, int i) {
+        return i < a.getAxisCount() ? a.getAxisX(i) : b.getAxisX(i - a.getAxisCount());
+    }
+
+    /**
+     * Get the y component of the axis i.
+     */
+    private static double axisY(ConvexBody a, ConvexBody b, int i) {
+        return i < a.getAxisCount() ? a.getAxisY(i) : b.getAxisY(i - a.getAxisCount());
+    }
+
+}
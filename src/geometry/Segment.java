@@ -138,33 +138,16 @@ public class Segment implements Transformable {
         return new Segment(other.getA(), other.getB());
     }
 
-    /**
-     * Compute the orientation between 3 points.
-     * Details are available into the doc.
-     * @param p1 the first Point.
-     * @param p2 the second Point.
-     * @param p3 the third Point
-     * @return 0 if no orientation, -1 if clockwise, 1 otherwise.
-     */
-    private int orientation(Point p1, Point p2, Point p3) {
-        double val = ( p2.getY() - p1.getY()) * (p3.getX() - p2.getX() )
-                - ( p3.getY() - p2.getY()) * (p2.getX() - p1.getX() ) ;
-        if (val == 0) return 0;
-        return val < 0 ? 1 : -1 ;
-    }
-
     /**
      * Check if the current Segment crosses another one.
+     * Delegates to the allocation-free Segments.intersects() kernel.
      * @param other the other Segment to check with.
      * @return true if the current Segment crosses the other one.
      */
     public boolean isColliding(Segment other) {
-        Point a = getA().copy();
-        Point b = getB().copy();
-        Point c = other.getA().copy();
-        Point d = other.getB().copy();
-        return  orientation(a, b, c) != orientation(a, b, d) &&
-                orientation(c, d, a) != orientation(c, d, b);
+        return Segments.intersects(
+                a.getX(), a.getY(), b.getX(), b.getY(),
+                other.a.getX(), other.a.getY(), other.b.getX(), other.b.getY());
     }
 
     /**
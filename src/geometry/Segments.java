@@ -0,0 +1,82 @@
+package geometry;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * Segments class with static orientation and crossing
+ * algorithms working on primitive coordinates.
+ * Nothing is allocated, so these methods can be used
+ * inside the hit-testing and collision loops.
+ */
+
+public final class Segments {
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Private constructor : this class only has static methods.
+     */
+    private Segments() {}
+
+
+    // ***** STATIC METHODS *****
+
+    /**
+     * Compute the orientation between 3 points.
+     * @param x1 the x coordinates of the first point.
+     * @param y1 the y coordinates of the first point.
+     * @param x2 the x coordinates of the second point.
+     * @param y2 the y coordinates of the second point.
+     * @param x3 the x coordinates of the third point.
+     * @param y3 the y coordinates of the third point.
+     * @return 0 if no orientation, -1 if clockwise, 1 otherwise.
+     */
+    public static int orientation(double x1, double y1, double x2, double y2, double x3, double y3) {
+        double val = (y2 - y1) * (x3 - x2) - (y3 - y2) * (x2 - x1);
+        if (val == 0) return 0;
+        return val < 0 ? 1 : -1;
+    }
+
+    /**
+     * Check if the segment a-b crosses the segment c-d.
+     * Same rule as Segment.isColliding() : the orientations
+     * of c and d relative to a-b must differ,
+     * and the orientations of a and b relative to c-d must differ.
+     * @param ax the x coordinates of a.
+     * @param ay the y coordinates of a.
+     * @param bx the x coordinates of b.
+     * @param by the y coordinates of b.
+     * @param cx the x coordinates of c.
+     * @param cy the y coordinates of c.
+     * @param dx the x coordinates of d.
+     * @param dy the y coordinates of d.
+     * @return true if the segment a-b crosses the segment c-d.
+     */
+    public static boolean intersects(double ax, double ay, double bx, double by,
+                                     double cx, double cy, double dx, double dy) {
+        return orientation(ax, ay, bx, by, cx, cy) != orientation(ax, ay, bx, by, dx, dy) &&
+                orientation(cx, cy, dx, dy, ax, ay) != orientation(cx, cy, dx, dy, bx, by);
+    }
+
+    /**
+     * Check if a point is inside a closed outline with the segment cross algorithm :
+     * count how many edges cross the horizontal segment
+     * from the point to x = 1e6.
+     * @param xs the x coordinates of the outline vertices.
+     * @param ys the y coordinates of the outline vertices.
+     * @param size the number of vertices to read in the arrays.
+     * @param px the x coordinates of the point.
+     * @param py the y coordinates of the point.
+     * @return true if the number of crossings is odd.
+     */
+    public static boolean contains(double[] xs, double[] ys, int size, double px, double py) {
+        int crosses = 0;
+        for (int i = 0; i < size; i++) {
+            int j = i == size - 1 ? 0 : i + 1;
+            if (intersects(xs[i], ys[i], xs[j], ys[j], px, py, 1e6, py)) crosses += 1;
+        }
+        return crosses % 2 != 0;
+    }
+
+}
@@ -0,0 +1,236 @@
+package geometry;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * SpatialGrid class : a uniform grid index of items with a bounding box.
+ * Each item is registered in every square cell its bounding box overlaps,
+ * so a point or rectangle query only visits the items of a few cells.
+ * Items also have a z-order : the item brought to front last is the topmost.
+ * @param <T> the type of the indexed items (compared by identity).
+ */
+
+public class SpatialGrid<T> {
+
+    // ***** NESTED CLASS *****
+
+    /**
+     * An indexed item with its bounding box, its cell range and its z-order.
+     */
+    private static class Entry<T> {
+        private final T item;
+        private double minX, minY, maxX, maxY;
+        private int minCol, minRow, maxCol, maxRow;
+        private long z;
+        private int mark;
+
+        private Entry(T item) {
+            this.item = item;
+        }
+    }
+
+
+    // ***** FIELDS *****
+    private final double cellSize;
+    private final HashMap<Long, ArrayList<Entry<T>>> cells;
+    private final IdentityHashMap<T, Entry<T>> entries;
+    private long zCounter;
+    private int queryMark;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct an empty SpatialGrid.
+     * @param cellSize the size of a square cell, should be close to the size of an item.
+     */
+    public SpatialGrid(double cellSize) {
+        this.cellSize = cellSize;
+        this.cells = new HashMap<>();
+        this.entries = new IdentityHashMap<>();
+    }
+
+
+    // ***** GETTERS *****
+
+    /**
+     * Get the number of indexed items.
+     * @return the number of indexed items.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Check if an item is indexed.
+     * @param item an item.
+     * @return true if the item is indexed.
+     */
+    public boolean contains(T item) {
+        return entries.containsKey(item);
+    }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Insert an item or update its bounding box.
+     * A new item is put at the front, an updated item keeps its z-order.
+     * @param item the item to index.
+     * @param box the bounding box of the item.
+     */
+    public void put(T item, Rectangle2D box) {
+        Entry<T> entry = entries.get(item);
+        if (entry == null) {
+            entry = new Entry<>(item);
+            entry.z = ++zCounter;
+            entries.put(item, entry);
+        } else {
+            removeFromCells(entry);
+        }
+        entry.minX = box.getMinX();
+        entry.minY = box.getMinY();
+        entry.maxX = box.getMaxX();
+        entry.maxY = box.getMaxY();
+        entry.minCol = cell(entry.minX);
+        entry.minRow = cell(entry.minY);
+        entry.maxCol = cell(entry.maxX);
+        entry.maxRow = cell(entry.maxY);
+        for (int col = entry.minCol; col <= entry.maxCol; col++) {
+            for (int row = entry.minRow; row <= entry.maxRow; row++) {
+                cells.computeIfAbsent(key(col, row), k -> new ArrayList<>()).add(entry);
+            }
+        }
+    }
+
+    /**
+     * Remove an item from the index.
+     * @param item the item to remove.
+     */
+    public void remove(T item) {
+        Entry<T> entry = entries.remove(item);
+        if (entry != null) removeFromCells(entry);
+    }
+
+    /**
+     * Put an indexed item above all the others.
+     * @param item the item to put at the front.
+     */
+    public void bringToFront(T item) {
+        Entry<T> entry = entries.get(item);
+        if (entry != null) entry.z = ++zCounter;
+    }
+
+    /**
+     * Find the topmost item at a point.
+     * Only the items of the cell containing the point are tested.
+     * @param x the x coordinates of the point.
+     * @param y the y coordinates of the point.
+     * @param hit the exact test, called only for items whose bounding box contains the point.
+     * @return the topmost item accepted by the hit test, or null.
+     */
+    public T topmost(double x, double y, Predicate<T> hit) {
+        ArrayList<Entry<T>> cell = cells.get(key(cell(x), cell(y)));
+        if (cell == null) return null;
+        Entry<T> best = null;
+        for (Entry<T> entry : cell) {
+            if (best != null && entry.z < best.z) continue;
+            if (x < entry.minX || x > entry.maxX || y < entry.minY || y > entry.maxY) continue;
+            if (hit.test(entry.item)) best = entry;
+        }
+        return best != null ? best.item : null;
+    }
+
+    /**
+     * Find all the items whose bounding box intersects a rectangle.
+     * @param rect the rectangle to search in.
+     * @return a new List of items, the topmost first.
+     */
+    public List<T> query(Rectangle2D rect) {
+        return query(rect.getMinX(), rect.getMinY(), rect.getMaxX(), rect.getMaxY());
+    }
+
+    /**
+     * Find all the items whose bounding box intersects a rectangle.
+     * @param minX the left side of the rectangle.
+     * @param minY the top side of the rectangle.
+     * @param maxX the right side of the rectangle.
+     * @param maxY the bottom side of the rectangle.
+     * @return a new List of items, the topmost first.
+     */
+    public List<T> query(double minX, double minY, double maxX, double maxY) {
+        ArrayList<Entry<T>> found = new ArrayList<>();
+        int mark = ++queryMark;
+        int minCol = cell(minX);
+        int maxCol = cell(maxX);
+        int minRow = cell(minY);
+        int maxRow = cell(maxY);
+        if ((long) (maxCol - minCol + 1) * (maxRow - minRow + 1) > cells.size()) {
+            // Large rectangle : scanning the items is cheaper than scanning the cells
+            for (Entry<T> entry : entries.values()) {
+                if (overlaps(entry, minX, minY, maxX, maxY)) found.add(entry);
+            }
+        } else {
+            for (int col = minCol; col <= maxCol; col++) {
+                for (int row = minRow; row <= maxRow; row++) {
+                    ArrayList<Entry<T>> cell = cells.get(key(col, row));
+                    if (cell == null) continue;
+                    for (Entry<T> entry : cell) {
+                        if (entry.mark == mark) continue;
+                        entry.mark = mark;
+                        if (overlaps(entry, minX, minY, maxX, maxY)) found.add(entry);
+                    }
+                }
+            }
+        }
+        found.sort((e1, e2) -> Long.compare(e2.z, e1.z));
+        ArrayList<T> items = new ArrayList<>(found.size());
+        for (Entry<T> entry : found) items.add(entry.item);
+        return items;
+    }
+
+    /**
+     * Check if the bounding box of an entry intersects a rectangle (borders included).
+     */
+    private static boolean overlaps(Entry<?> entry, double minX, double minY, double maxX, double maxY) {
+        return entry.minX <= maxX && entry.maxX >= minX && entry.minY <= maxY && entry.maxY >= minY;
+    }
+
+    /**
+     * Remove an entry from all the cells of its current range.
+     */
+    private void removeFromCells(Entry<T> entry) {
+        for (int col = entry.minCol; col <= entry.maxCol; col++) {
+            for (int row = entry.minRow; row <= entry.maxRow; row++) {
+                Long key = key(col, row);
+                ArrayList<Entry<T>> cell = cells.get(key);
+                if (cell == null) continue;
+                cell.remove(entry);
+                if (cell.isEmpty()) cells.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Get the cell index of a coordinate.
+     */
+    private int cell(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    /**
+     * Pack a column and a row into a cell key.
+     */
+    private static long key(int col, int row) {
+        return ((long) col << 32) | (row & 0xffffffffL);
+    }
+
+}
@@ -0,0 +1,227 @@
+package geometry;
+
+import java.util.Arrays;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * SweepAndPrune class to find the crossing segments of many outlines.
+ * It is a sort and prune pair filter, not a Bentley-Ottmann sweep line :
+ * segments are sorted by their left end, then each segment is tested against
+ * the active segments (not yet ended on its left) whose y range overlaps its own.
+ * The active segments are an unordered list, so the cost is O(n log n + n * a)
+ * where a is the number of active segments : fast for the few edges of two pieces
+ * and for outlines spread along x, quadratic when all the segments span the same x range.
+ * Each segment has an owner (e.g. a piece index) and segments
+ * of the same owner are never tested together.
+ * Crossings use the same rule as Segments.intersects().
+ */
+
+public class SweepAndPrune {
+
+    // ***** NESTED INTERFACE *****
+
+    /**
+     * Visitor receiving each pair of crossing segments.
+     */
+    public interface CrossingVisitor {
+
+        /**
+         * Called for each pair of crossing segments.
+         * @param first the index of the first segment.
+         * @param second the index of the second segment.
+         * @return true to continue the sweep, false to stop it.
+         */
+        boolean crossing(int first, int second);
+    }
+
+
+    // ***** FIELDS *****
+    private double[] x1 = new double[16];
+    private double[] y1 = new double[16];
+    private double[] x2 = new double[16];
+    private double[] y2 = new double[16];
+    private int[] owners = new int[16];
+    private int[] order = new int[16];
+    private int[] active = new int[16];
+    private int size;
+
+
+    // ***** GETTERS *****
+
+    /**
+     * Get the number of segments.
+     * @return the number of segments.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the owner of a segment.
+     * @param i the segment index.
+     * @return the owner given when the segment was added.
+     */
+    public int getOwner(int i) {
+        return owners[i];
+    }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Remove all the segments, the arrays are kept for the next sweep.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Add a segment a-b.
+     * @param ax the x coordinates of a.
+     * @param ay the y coordinates of a.
+     * @param bx the x coordinates of b.
+     * @param by the y coordinates of b.
+     * @param owner the owner of the segment.
+     * @return the index of the new segment.
+     */
+    public int add(double ax, double ay, double bx, double by, int owner) {
+        if (size == x1.length) grow();
+        x1[size] = ax;
+        y1[size] = ay;
+        x2[size] = bx;
+        y2[size] = by;
+        owners[size] = owner;
+        return size++;
+    }
+
+    /**
+     * Add all the edges of a closed outline.
+     * @param outline the vertices of the outline.
+     * @param owner the owner of the edges.
+     */
+    public void addOutline(VertexBuffer outline, int owner) {
+        addOutline(outline, owner, 1, 0, 0);
+    }
+
+    /**
+     * Add all the edges of a closed outline scaled around a point,
+     * e.g. slightly shrunk so that touching outlines do not cross.
+     * The outline itself is not modified.
+     * @param outline the vertices of the outline.
+     * @param owner the owner of the edges.
+     * @param factor the scale factor.
+     * @param cx the x coordinates of the scale center.
+     * @param cy the y coordinates of the scale center.
+     */
+    public void addOutline(VertexBuffer outline, int owner, double factor, double cx, double cy) {
+        int n = outline.size();
+        for (int i = 0; i < n; i++) {
+            int next = i == n - 1 ? 0 : i + 1;
+            add(cx + (outline.getX(i) - cx) * factor, cy + (outline.getY(i) - cy) * factor,
+                    cx + (outline.getX(next) - cx) * factor, cy + (outline.getY(next) - cy) * factor, owner);
+        }
+    }
+
+    /**
+     * Check if two segments of different owners cross.
+     * The sweep stops at the first crossing found.
+     * @return true if at least one pair of segments crosses.
+     */
+    public boolean anyCrossing() {
+        return sweep((first, second) -> false) > 0;
+    }
+
+    /**
+     * Report every pair of crossing segments with different owners.
+     * @param visitor the visitor called for each crossing, it can stop the sweep.
+     * @return the number of crossings reported.
+     */
+    public int sweep(CrossingVisitor visitor) {
+        for (int i = 0; i < size; i++) order[i] = i;
+        sortByLeft(0, size - 1);
+        int activeSize = 0;
+        int count = 0;
+        for (int k = 0; k < size; k++) {
+            int s = order[k];
+            double left = left(s);
+            // Prune the segments ending before the left end of the new one
+            int kept = 0;
+            for (int a = 0; a < activeSize; a++) {
+                if (right(active[a]) >= left) active[kept++] = active[a];
+            }
+            activeSize = kept;
+            // Test the new segment against the active ones
+            for (int a = 0; a < activeSize; a++) {
+                int t = active[a];
+                if (owners[t] == owners[s]) continue;
+                if (Math.max(y1[t], y2[t]) < Math.min(y1[s], y2[s])) continue;
+                if (Math.min(y1[t], y2[t]) > Math.max(y1[s], y2[s])) continue;
+                if (Segments.intersects(x1[t], y1[t], x2[t], y2[t], x1[s], y1[s], x2[s], y2[s])) {
+                    count++;
+                    if (!visitor.crossing(t, s)) return count;
+                }
+            }
+            active[activeSize++] = s;
+        }
+        return count;
+    }
+
+    /**
+     * Get the left end of a segment.
+     */
+    private double left(int i) {
+        return Math.min(x1[i], x2[i]);
+    }
+
+    /**
+     * Get the right end of a segment.
+     */
+    private double right(int i) {
+        return Math.max(x1[i], x2[i]);
+    }
+
+    /**
+     * Quick sort of the order array by the left end of the segments.
+     */
+    private void sortByLeft(int from, int to) {
+        while (from < to) {
+            double pivot = left(order[(from + to) >>> 1]);
+            int i = from;
+            int j = to;
+            while (i <= j) {
+                while (left(order[i]) < pivot) i++;
+                while (left(order[j]) > pivot) j--;
+                if (i <= j) {
+                    int tmp = order[i];
+                    order[i++] = order[j];
+                    order[j--] = tmp;
+                }
+            }
+            // Recursion on the smaller part keeps the stack depth logarithmic
+            if (j - from < to - i) {
+                sortByLeft(from, j);
+                from = i;
+            } else {
+                sortByLeft(i, to);
+                to = j;
+            }
+        }
+    }
+
+    /**
+     * Double the capacity of the arrays.
+     */
+    private void grow() {
+        int capacity = x1.length * 2;
+        x1 = Arrays.copyOf(x1, capacity);
+        y1 = Arrays.copyOf(y1, capacity);
+        x2 = Arrays.copyOf(x2, capacity);
+        y2 = Arrays.copyOf(y2, capacity);
+        owners = Arrays.copyOf(owners, capacity);
+        order = Arrays.copyOf(order, capacity);
+        active = Arrays.copyOf(active, capacity);
+    }
+
+}
@@ -0,0 +1,217 @@
+package geometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * VertexBuffer class storing polygon vertices
+ * as packed x and y coordinates in two double arrays.
+ * Bulk transformations loop over the primitive arrays
+ * instead of reaching each vertex through a Point object.
+ */
+
+public class VertexBuffer {
+
+    // ***** FIELDS *****
+    private final double[] xs;
+    private final double[] ys;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct an empty VertexBuffer with a fixed number of vertices.
+     * All coordinates are initialized to 0.
+     * @param size the number of vertices.
+     */
+    public VertexBuffer(int size) {
+        xs = new double[size];
+        ys = new double[size];
+    }
+
+    /**
+     * Construct a new VertexBuffer from a List of Point.
+     * The coordinates are copied, the Point objects are not kept.
+     * @param points a List of Point representing each vertex.
+     */
+    public VertexBuffer(List<Point> points) {
+        this(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            xs[i] = points.get(i).getX();
+            ys[i] = points.get(i).getY();
+        }
+    }
+
+    /**
+     * Construct a new VertexBuffer from another one.
+     * @param other another VertexBuffer to copy.
+     */
+    public VertexBuffer(VertexBuffer other) {
+        xs = other.xs.clone();
+        ys = other.ys.clone();
+    }
+
+
+    // ***** STATIC FACTORY METHODS *****
+
+    /**
+     * Factory method returns a new VertexBuffer from some Points.
+     * @param points the Points representing each vertex.
+     * @return a new VertexBuffer with the Points coordinates.
+     */
+    public static VertexBuffer of(Point... points) {
+        return new VertexBuffer(Arrays.asList(points));
+    }
+
+
+    // ***** GETTERS AND SETTERS *****
+
+    /**
+     * Get the number of vertices.
+     * @return the number of vertices.
+     */
+    public int size() { return xs.length; }
+
+    /**
+     * Get the x coordinates of a vertex.
+     * @param i the vertex index.
+     * @return the x coordinates of the vertex.
+     */
+    public double getX(int i) { return xs[i]; }
+
+    /**
+     * Get the y coordinates of a vertex.
+     * @param i the vertex index.
+     * @return the y coordinates of the vertex.
+     */
+    public double getY(int i) { return ys[i]; }
+
+    /**
+     * Set the coordinates of a vertex.
+     * @param i the vertex index.
+     * @param x the new x coordinates.
+     * @param y the new y coordinates.
+     */
+    public void set(int i, double x, double y) {
+        xs[i] = x;
+        ys[i] = y;
+    }
+
+    /**
+     * Create a new Point from a vertex.
+     * @param i the vertex index.
+     * @return a new Point with the vertex coordinates.
+     */
+    public Point getPoint(int i) {
+        return new Point(xs[i], ys[i]);
+    }
+
+    /**
+     * Create a new ArrayList of Point with all the vertices.
+     * Modifying the returned Points does not modify the buffer.
+     * @return a new ArrayList of Point with all the vertices.
+     */
+    public ArrayList<Point> toPoints() {
+        ArrayList<Point> points = new ArrayList<>(xs.length);
+        for (int i = 0; i < xs.length; i++) points.add(new Point(xs[i], ys[i]));
+        return points;
+    }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Translate all the vertices.
+     * @param dx the distance to move on the x-axe.
+     * @param dy the distance to move on the y-axe.
+     */
+    public void translate(double dx, double dy) {
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] += dx;
+            ys[i] += dy;
+        }
+    }
+
+    /**
+     * Rotate all the vertices around a center.
+     * The cosinus and the sinus are computed once for all the vertices.
+     * @param angle an Angle to rotate.
+     * @param cx the x coordinates of the rotation center.
+     * @param cy the y coordinates of the rotation center.
+     */
+    public void rotate(Angle angle, double cx, double cy) {
+        double cos = angle.cos();
+        double sin = angle.sin();
+        for (int i = 0; i < xs.length; i++) {
+            double dx = xs[i] - cx;
+            double dy = ys[i] - cy;
+            xs[i] = cx + dx * cos - dy * sin;
+            ys[i] = cy + dx * sin + dy * cos;
+        }
+    }
+
+    /**
+     * Scale all the vertices from a reference point.
+     * @param factor a double type factor.
+     * @param cx the x coordinates of the reference point.
+     * @param cy the y coordinates of the reference point.
+     */
+    public void scale(double factor, double cx, double cy) {
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = cx + factor * (xs[i] - cx);
+            ys[i] = cy + factor * (ys[i] - cy);
+        }
+    }
+
+    /**
+     * Round all the vertices to the nearest multiple of a step.
+     * @param step the grid step.
+     */
+    public void snap(int step) {
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = Math.round(xs[i] / step) * step;
+            ys[i] = Math.round(ys[i] / step) * step;
+        }
+    }
+
+    /**
+     * Check if a point is inside the outline formed by the vertices.
+     * @param px the x coordinates of the point.
+     * @param py the y coordinates of the point.
+     * @return true if the point is inside the outline.
+     */
+    public boolean contains(double px, double py) {
+        return Segments.contains(xs, ys, xs.length, px, py);
+    }
+
+    /**
+     * Write the truncated integer coordinates of the vertices
+     * inside two int arrays, as used by Graphics.fillPolygon().
+     * @param xCoords an int array of at least size() length.
+     * @param yCoords an int array of at least size() length.
+     */
+    public void toIntCoords(int[] xCoords, int[] yCoords) {
+        for (int i = 0; i < xs.length; i++) {
+            xCoords[i] = (int) xs[i];
+            yCoords[i] = (int) ys[i];
+        }
+    }
+
+    /**
+     * Return a String with the vertices coordinates.
+     * This method toString() is override from Object class.
+     * @return a String with the vertices coordinates.
+     */
+    @Override
+    public String toString() {
+        return "VertexBuffer{" +
+                "xs=" + Arrays.toString(xs) +
+                ", ys=" + Arrays.toString(ys) +
+                '}';
+    }
+
+}
@@ -8,7 +8,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.util.ArrayList;
+import java.awt.event.MouseWheelEvent;
 
 
 /**
@@ -20,15 +20,21 @@ import java.util.ArrayList;
  * 1. Controller listens events from the View.
  * 2. Controller modifies the Model according to the events.
  * 3. Model notifies the View if changes were made.
- * 4. View updates a boolean if it receives notifications.
- * 5. The thread check the boolean and repaint() if it's necessary.
+ * 4. View asks a frame to its RenderScheduler if it receives notifications.
+ * 5. The RenderScheduler coalesces the requests in one repaint() per display refresh.
+ * The mouse positions are converted from the screen to the world by the Camera of the View.
  */
 
 public class ControllerTangram {
 
+    // ***** CONSTANTS *****
+    private static final double ZOOM_FACTOR = 1.1;
+
     // ***** FIELDS *****
     private final ModelTangram model;
     private final ViewTangram view;
+    private final CoverageChecker coverageChecker;
+    private final HintService hintService;
 
 
     // ***** CONSTRUCTOR *****
@@ -43,6 +49,8 @@ public class ControllerTangram {
     public ControllerTangram(ModelTangram model, ViewTangram view) {
         this.model = model;
         this.view = view;
+        this.coverageChecker = new CoverageChecker(model);
+        this.hintService = new HintService(model);
 
         // Buttons listener
         LocalActionListener localActionListener = new LocalActionListener();
@@ -56,11 +64,13 @@ public class ControllerTangram {
         view.getTriangleItem().addActionListener(localActionListener);
         view.getRectangleItem().addActionListener(localActionListener);
         view.getParallelogramItem().addActionListener(localActionListener);
+        view.getHintItem().addActionListener(localActionListener);
 
         // Mouse listener
         MouseAdapter mouseAdapter = new LocalMouseListener();
         view.addMouseListener(mouseAdapter);
         view.addMouseMotionListener(mouseAdapter);
+        view.addMouseWheelListener(mouseAdapter);
 
     }
 
@@ -73,80 +83,30 @@ public class ControllerTangram {
      * relative to the View STEP constant.
      */
     private void alignShape(Shape shape) {
-        ArrayList<Point> newVertices = new ArrayList<>();
         Polygon piece = (Polygon) shape;
-        for (Point point : piece.getVertices()) {
-            int step = ViewTangram.STEP;
-            int xAligned = (int) (Math.round(point.getX() / step)) * step;
-            int yAligned = (int) (Math.round(point.getY() / step)) * step;
-            Point pAligned = new Point(xAligned, yAligned);
-            newVertices.add(pAligned);
-        }
-        piece.setVertices(newVertices);
+        piece.snap(ViewTangram.STEP);
     }
 
     /**
-     * Check if the Tangram is complete.
-     * Downsize each Tangram pieces for matching with
-     * Polygon containment and segment intersection algorithms :
-     * Necessary because it doesn't work if two Point are equals
-     * and if two Segments are parallels or collinear.
-     * Check if the Shape to fill contains all Tangram pieces vertices.
-     * Check if all Tangram pieces segments do not collide.
-     * After checking, resize all Tangram pieces and align it to the grid.
-     * Modify the View Background if it's win !
+     * Cancel the hint search and remove the hint of the View,
+     * called when the board changes.
      */
-    private void checkWin() {
-        boolean win = true;
-        Shape shapeToFill = model.getFrontShapeToFill();
-        ArrayList<Group> tangramGroup = model.getTangramPieces();
-        ArrayList<Polygon> tangramPieces = new ArrayList<>();
-        for (Group group : tangramGroup) {
-            tangramPieces.add( (Polygon) group.getShapeGroup().get(0) );
-        }
-
-        // Tangram pieces downsizing
-        for (Polygon p : tangramPieces)  p.scale(0.999);
-
-        // Checking if each piece vertex are inside the shape to fill segments
-        for (Polygon piece : tangramPieces) {
-            ArrayList<Point> vertices = piece.getVertices();
-            for (Point vertex : vertices) {
-                if (!shapeToFill.contains(vertex)) {
-                    win = false;
-                    break;
-                }
-            }
-        }
-
-        // Checking if segments of each piece intersect other pieces segments
-        for (int i = 0; i < tangramPieces.size(); i++) {
-            ArrayList<Segment> pieceSegments = tangramPieces.get(i).getSegments();
-            for (int j = 0; j < tangramPieces.size(); j++) {
-                if (i != j) {
-                    ArrayList<Segment> otherPiecesSegments =  tangramPieces.get(j).getSegments();
-                    for (Segment segment : pieceSegments) {
-                        for (Segment other : otherPiecesSegments) {
-                            if (segment.isColliding(other)) {
-                                win = false;
-                                break;
-                            }
-                        }
-                    }
-                }
-            }
-        }
-
-        // Tangram pieces resizing and alignment to the grid
-        for (Polygon p : tangramPieces) {
-            p.scale(1.001);
-            alignShape(p);
-        }
+    private void clearHint() {
+        hintService.cancel();
+        view.setHint(null);
+    }
 
-        // Change background Color if Win or not
-        if (win) view.setBackground(ViewTangram.WIN_BACKGROUND_COLOR);
+    /**
+     * Check if the Tangram is complete and
+     * modify the View Background if it's win !
+     * The bitmap of the CoverageChecker rejects most boards first,
+     * then the Model only checks again the pieces moved since the last check.
+     * Also update the covered percentage displayed by the View.
+     */
+    private void checkWin() {
+        view.setCoveredPercent(coverageChecker.getCoveredPercent());
+        if (coverageChecker.mayWin() && model.isWin()) view.setBackground(ViewTangram.WIN_BACKGROUND_COLOR);
         else view.setBackground(ViewTangram.BACKGROUND_COLOR);
-
     }
 
 
@@ -159,11 +119,17 @@ public class ControllerTangram {
     private class LocalActionListener implements ActionListener {
 
         /**
-         * Check if a JButton was clicked and change the shape to fill.
+         * Check if a JButton was clicked and change the shape to fill,
+         * or if the "Hint" item was clicked and ask a hint.
          * @param e the event to be processed.
          */
         @Override
         public void actionPerformed(ActionEvent e) {
+            if (e.getSource() == view.getHintItem()) {
+                hintService.requestHint(pose -> view.setHint(pose == null ? null : pose.getVertices()));
+                return;
+            }
+            clearHint();
             if (e.getSource() == view.getSquareBtn() || e.getSource() == view.getSquareItem()) {
                 model.putShapeToFillAtFront(model.getWhiteSquare());
                 checkWin();
@@ -193,6 +159,7 @@ public class ControllerTangram {
 
         private Group selectedPiece;
         private Point mousePosOnClick;
+        private java.awt.Point panPos;
 
         /**
          * Save the mouse position inside a class field.
@@ -201,40 +168,51 @@ public class ControllerTangram {
          * the mouse is pressed on it.
          * Call putTangramPieceAtFront(Group piece) with
          * this selected Tangram piece as argument.
+         * Start to pan the View if the mouse is pressed on the background.
          * @param e the event to be processed
          */
         @Override
         public void mousePressed(MouseEvent e) {
 
-            // Saving mousePos on click
-            mousePosOnClick = new Point(e.getX(), e.getY());
+            // Saving mousePos on click, in the world coordinates
+            mousePosOnClick = view.getCamera().toWorld(e.getX(), e.getY());
 
             // JPopUpMenu
             if (e.isPopupTrigger()) {
                 JPopupMenu popupMenu = view.getPopupMenu();
-                popupMenu.show(view, (int) mousePosOnClick.getX(), (int) mousePosOnClick.getY());
+                popupMenu.show(view, e.getX(), e.getY());
             }
 
-            // Tangram Pieces selection
-            for (Group piece : model.getTangramPieces()) {
-                // index 0 = the Shape
-                if (piece.getShapeGroup().get(0).contains(mousePosOnClick)) {
-                    selectedPiece = piece;
-                    model.putTangramPieceAtFront(selectedPiece);
-                    break;
-                } else {
-                    selectedPiece = null;
-                }
+            // Tangram Pieces selection (topmost piece from the spatial index)
+            selectedPiece = model.getPieceAt(mousePosOnClick);
+            if (selectedPiece != null) {
+                clearHint();
+                view.getRenderScheduler().setLowLatency(true);
+                view.setActivePiece(selectedPiece);
+                model.putTangramPieceAtFront(selectedPiece);
+            } else if (SwingUtilities.isLeftMouseButton(e)) {
+                panPos = e.getPoint();
             }
         }
 
         /**
-         * Handle Tangram pieces dragging and rotating.
+         * Handle Tangram pieces dragging and rotating, or the View panning.
+         * After each move the View shows the collision of the dragged piece, if any.
          * @param e the event to be processed
          */
         @Override
         public void mouseDragged(MouseEvent e) {
 
+            // Panning the View
+            if (panPos != null) {
+                view.pan(e.getX() - panPos.x, e.getY() - panPos.y);
+                panPos = e.getPoint();
+                return;
+            }
+
+            // Mouse position in the world coordinates
+            Point mousePos = view.getCamera().toWorld(e.getX(), e.getY());
+
             if (selectedPiece != null) {
 
                 // Checking if mousePos is inside Tangram piece center Circle
@@ -245,33 +223,36 @@ public class ControllerTangram {
                     int dx = 0;
                     int dy = 0;
                     int step = ViewTangram.STEP;
-                    dx += (int) (e.getX() - mousePosOnClick.getX());
-                    dy += (int) (e.getY() - mousePosOnClick.getY());
+                    dx += (int) (mousePos.getX() - mousePosOnClick.getX());
+                    dy += (int) (mousePos.getY() - mousePosOnClick.getY());
                     if (Math.abs(dx) > step || Math.abs(dy) > step) {
                         int dxAligned = (dx / step) * step;
                         int dyAligned = (dy / step) * step;
                         Vector vector = new Vector(dxAligned, dyAligned);
                         model.translateFrontPiece(vector);
+                        view.setContact(model.getFrontContact());
                         mousePosOnClick = new Point(
-                                (int) (mousePosOnClick.getX() + dxAligned),
-                                (int) (mousePosOnClick.getY() + dyAligned)
+                                mousePosOnClick.getX() + dxAligned,
+                                mousePosOnClick.getY() + dyAligned
                         );
                     }
 
                 // Rotating the piece
                 } else {
                     double angleStep = 45;
-                    double deltaX = mousePosOnClick.getX() - selectedPiece.getShapeGroup().get(0).getCenter().getX();
-                    double deltaY = mousePosOnClick.getY() - selectedPiece.getShapeGroup().get(0).getCenter().getY();
+                    Point shapeCenter = selectedPiece.getShapeGroup().get(0).getCenter();
+                    double deltaX = mousePosOnClick.getX() - shapeCenter.getX();
+                    double deltaY = mousePosOnClick.getY() - shapeCenter.getY();
                     Angle angleMouseShapeCenterAxeX = new Angle(deltaX, deltaY);
-                    double deltaX2 = e.getX() - selectedPiece.getShapeGroup().get(0).getCenter().getX();
-                    double deltaY2 = e.getY() - selectedPiece.getShapeGroup().get(0).getCenter().getY();
+                    double deltaX2 = mousePos.getX() - shapeCenter.getX();
+                    double deltaY2 = mousePos.getY() - shapeCenter.getY();
                     Angle angleMouseDraggedShapeCenterAxeX = new Angle(deltaX2, deltaY2);
                     Angle angleToRotate = angleMouseDraggedShapeCenterAxeX.minus(angleMouseShapeCenterAxeX);
                     if (Math.abs(angleToRotate.getDegrees()) >= angleStep) {
                         if (angleToRotate.getDegrees() < 0) model.rotateFrontShape(Angle.inDegrees(-angleStep));
                         else model.rotateFrontShape(Angle.inDegrees(+angleStep));
-                        mousePosOnClick = new Point(e.getX(), e.getY());
+                        view.setContact(model.getFrontContact());
+                        mousePosOnClick = mousePos;
                     }
                 }
             }
@@ -279,15 +260,31 @@ public class ControllerTangram {
 
         /**
          * Call checkWin() and alignShape() when mouse is released.
+         * The drag is over : the View goes back to the normal frame pacing
+         * and the piece goes back to the resting layer without its collision.
          * @param e the event to be processed
          */
         @Override
         public void mouseReleased(MouseEvent e) {
             super.mouseReleased(e);
+            panPos = null;
+            view.getRenderScheduler().setLowLatency(false);
             alignShape(model.getFrontPiece().getShapeGroup().get(0));
+            model.refreshPiece(model.getFrontPiece());
+            view.setActivePiece(null);
+            view.setContact(null);
             checkWin();
         }
 
+        /**
+         * Zoom the View around the mouse position.
+         * @param e the event to be processed
+         */
+        @Override
+        public void mouseWheelMoved(MouseWheelEvent e) {
+            view.zoom(Math.pow(ZOOM_FACTOR, -e.getPreciseWheelRotation()), e.getX(), e.getY());
+        }
+
     }
 
 }
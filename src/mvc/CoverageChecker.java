@@ -0,0 +1,113 @@
+package mvc;
+
+import geometry.CoverageMask;
+import shapes.Group;
+import shapes.Polygon;
+import shapes.Shape;
+
+import java.util.IdentityHashMap;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * CoverageChecker class.
+ * Rasterizes the shapes to fill and the Tangram pieces of the Model
+ * into CoverageMask bitmaps of the View, with 4 triangles per STEP cell.
+ * Masks are cached and rebuilt only when a Shape version changes,
+ * so a check is a few word-wide AND / OR / XOR and popcounts :
+ * it gives the covered percentage and rejects most boards before the exact win check.
+ */
+
+public class CoverageChecker {
+
+    // ***** NESTED CLASS *****
+
+    /**
+     * A mask with the Shape version it was computed for.
+     */
+    private static class CachedMask {
+        private final long version;
+        private final CoverageMask mask;
+
+        private CachedMask(long version, CoverageMask mask) {
+            this.version = version;
+            this.mask = mask;
+        }
+    }
+
+
+    // ***** FIELDS *****
+    private final ModelTangram model;
+    private final CoverageMask board;
+    private final CoverageMask union;
+    private final IdentityHashMap<Shape, CachedMask> masks;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct a CoverageChecker on the whole View area.
+     * @param model a ModelTangram object.
+     */
+    public CoverageChecker(ModelTangram model) {
+        this.model = model;
+        int step = ViewTangram.STEP;
+        this.board = new CoverageMask(0, 0, step, ViewTangram.WIDTH / step, ViewTangram.HEIGHT / step);
+        this.union = new CoverageMask(0, 0, step, ViewTangram.WIDTH / step, ViewTangram.HEIGHT / step);
+        this.masks = new IdentityHashMap<>();
+    }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Cheap reject before the exact win check of the Model :
+     * check if the pieces may exactly cover the front shape to fill.
+     * When every piece is aligned on the grid, its mask is exact, so the pieces
+     * can only win if no two pieces share a bit and their union is the mask of the shape to fill.
+     * A piece off the board or not aligned on the grid cannot be decided on the bitmap.
+     * @return false if the bitmap proves the Tangram is not complete, true if it may be.
+     */
+    public boolean mayWin() {
+        CoverageMask target = getMask(model.getFrontShapeToFill());
+        if (target == null) return false;
+        union.clear();
+        for (Group group : model.getTangramPieces()) {
+            Polygon piece = (Polygon) group.getShapeGroup().get(0);
+            CoverageMask mask = getMask(piece);
+            if (Math.abs(mask.cardinality() * mask.getBitArea() - piece.getArea()) > mask.getBitArea() / 2) return true;
+            if (union.intersects(mask)) return false;
+            union.or(mask);
+        }
+        return union.xorCardinality(target) == 0;
+    }
+
+    /**
+     * Compute the percentage of the front shape to fill covered by the pieces.
+     * @return a value between 0 and 100.
+     */
+    public double getCoveredPercent() {
+        CoverageMask target = getMask(model.getFrontShapeToFill());
+        if (target == null || target.cardinality() == 0) return 0;
+        union.clear();
+        for (Group group : model.getTangramPieces()) union.or(getMask(group.getShapeGroup().get(0)));
+        return 100.0 * union.andCardinality(target) / target.cardinality();
+    }
+
+    /**
+     * Get the mask of a Shape, from the cache if the Shape did not change.
+     * @param shape a Shape, only Polygons can be rasterized.
+     * @return the mask of the Shape, or null if it is not a Polygon.
+     */
+    private CoverageMask getMask(Shape shape) {
+        if (!(shape instanceof Polygon)) return null;
+        CachedMask cached = masks.get(shape);
+        if (cached == null || cached.version != shape.getVersion()) {
+            cached = new CachedMask(shape.getVersion(), ((Polygon) shape).rasterize(board));
+            masks.put(shape, cached);
+        }
+        return cached.mask;
+    }
+
+}
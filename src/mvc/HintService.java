@@ -0,0 +1,153 @@
+package mvc;
+
+import geometry.Clipping;
+import shapes.Polygon;
+import shapes.Shape;
+import solver.Pose;
+import solver.Solution;
+import solver.TangramSolver;
+import solver.TranspositionTable;
+
+import javax.swing.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * HintService class.
+ * Finds the next piece to place for the current board and the front shape to fill,
+ * on a background thread and within a time budget (50 ms by default).
+ * A new request cancels the previous one, and a result is dropped
+ * if the board changed since its request.
+ * The work is reused between the hints : each shape to fill keeps its TranspositionTable
+ * (the boards known without Solution) and its last Solutions, so a hint agreeing
+ * with a known Solution is given without search.
+ */
+
+public class HintService {
+
+    // ***** CONSTANTS *****
+    public static final long DEFAULT_BUDGET_MILLIS = 50;
+    private static final int KNOWN_SOLUTIONS = 8;
+    private static final int TABLE_BUCKETS_LOG2 = 14;
+
+    // ***** FIELDS *****
+    private final ModelTangram model;
+    private final long budgetNanos;
+    private final ExecutorService executor;
+    private final IdentityHashMap<Shape, TranspositionTable> tables;
+    private final IdentityHashMap<Shape, Deque<Solution>> solutions;
+    private Future<?> pending;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct a HintService with the default time budget.
+     * @param model a ModelTangram object.
+     */
+    public HintService(ModelTangram model) {
+        this(model, DEFAULT_BUDGET_MILLIS);
+    }
+
+    /**
+     * Construct a HintService.
+     * @param model a ModelTangram object.
+     * @param budgetMillis the time budget of a hint search, in milliseconds.
+     */
+    public HintService(ModelTangram model, long budgetMillis) {
+        this.model = model;
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "HintService");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.tables = new IdentityHashMap<>();
+        this.solutions = new IdentityHashMap<>();
+    }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Ask a hint for the current board, the previous request is cancelled.
+     * Must be called on the Swing thread.
+     * @param callback receives on the Swing thread the Pose of the next piece to place,
+     *                 or null if no hint was found in the time budget.
+     */
+    public void requestHint(Consumer<Pose> callback) {
+        cancel();
+        long version = model.getBoardVersion();
+        Shape target = model.getFrontShapeToFill();
+        // Copy the pieces : the board may change during the search
+        List<Polygon> pieces = new ArrayList<>();
+        for (Polygon piece : model.getPiecePolygons()) pieces.add(new Polygon(piece.getColor(), piece.getVertices()));
+        pending = executor.submit(() -> {
+            Pose hint = target instanceof Polygon ? nextPlacement(pieces, (Polygon) target) : null;
+            if (Thread.currentThread().isInterrupted()) return;
+            SwingUtilities.invokeLater(() -> {
+                if (model.getBoardVersion() == version) callback.accept(hint);
+            });
+        });
+    }
+
+    /**
+     * Cancel the current request, e.g. when the board changes.
+     */
+    public void cancel() {
+        if (pending != null) pending.cancel(true);
+        pending = null;
+    }
+
+    /**
+     * Stop the background thread.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Search the next piece to place : the biggest piece which is not at its Pose
+     * in a Solution keeping the pieces already well placed.
+     * Called on the background thread only.
+     * @param pieces the Tangram pieces, in the order of ModelTangram.getPieceSet().
+     * @param target the shape to fill.
+     * @return the Pose of the piece, or null if no Solution was found in the time budget.
+     */
+    Pose nextPlacement(List<Polygon> pieces, Polygon target) {
+        TranspositionTable table = tables.computeIfAbsent(target, t -> new TranspositionTable(TABLE_BUCKETS_LOG2));
+        Deque<Solution> known = solutions.computeIfAbsent(target, t -> new ArrayDeque<>());
+        TangramSolver solver = new TangramSolver(pieces, target, ViewTangram.STEP, table);
+        Solution solution = solver.complete(budgetNanos, known);
+        if (solution == null) return null;
+        // A Solution given without search is already known
+        if (solver.getNodeCount() > 0) {
+            known.addFirst(solution);
+            if (known.size() > KNOWN_SOLUTIONS) known.removeLast();
+        }
+        Pose hint = null;
+        double hintArea = 0;
+        for (Pose pose : solution.getPoses()) {
+            if ((solver.getFixedPieces() & (1 << pose.getPiece())) != 0) continue;
+            if (pose.isReachedBy(pieces.get(pose.getPiece()))) continue;
+            double area = Clipping.area(pose.getVertexBuffer());
+            if (area > hintArea) {
+                hint = pose;
+                hintArea = area;
+            }
+        }
+        return hint;
+    }
+
+}
@@ -0,0 +1,108 @@
+package mvc;
+
+import shapes.Shape;
+
+import java.awt.geom.Rectangle2D;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * ModelChange class.
+ * The argument of the ModelTangram notifications : the damage,
+ * the area of the View which must be painted again, or no damage
+ * when everything may have changed, and the Shape which changed if it is known.
+ * This class is immutable.
+ */
+
+public class ModelChange {
+
+    // ***** CONSTANTS *****
+    private static final ModelChange EVERYTHING = new ModelChange(null);
+
+    // ***** FIELDS *****
+    private final Shape shape;
+    private final Rectangle2D damage;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct a ModelChange.
+     * @param damage the area to paint again (copied), or null for everything.
+     */
+    public ModelChange(Rectangle2D damage) {
+        this(null, damage);
+    }
+
+    /**
+     * Construct a ModelChange of one Shape.
+     * @param shape the Shape which changed, or null if it is unknown.
+     * @param damage the area to paint again (copied), or null for everything.
+     */
+    public ModelChange(Shape shape, Rectangle2D damage) {
+        this.shape = shape;
+        this.damage = damage == null ? null : (Rectangle2D) damage.clone();
+    }
+
+
+    // ***** GETTERS *****
+
+    /**
+     * Get the Shape which changed.
+     * @return the Shape, or null if it is unknown or several Shapes changed.
+     */
+    public Shape getShape() { return shape; }
+
+    /**
+     * Get the area to paint again.
+     * @return a new Rectangle2D, or null if everything must be painted again.
+     */
+    public Rectangle2D getDamage() {
+        return damage == null ? null : (Rectangle2D) damage.clone();
+    }
+
+    /**
+     * Check if everything must be painted again.
+     * @return true if the change has no damage area.
+     */
+    public boolean isEverything() {
+        return damage == null;
+    }
+
+
+    // ***** STATIC METHODS *****
+
+    /**
+     * Get the change of everything.
+     * @return the shared ModelChange without damage area.
+     */
+    public static ModelChange everything() {
+        return EVERYTHING;
+    }
+
+    /**
+     * Get the change of a Shape which moved.
+     * @param shape the Shape which moved.
+     * @param before the bounding box before the move.
+     * @param after the bounding box after the move.
+     * @return a new ModelChange whose damage is the union of both boxes.
+     */
+    public static ModelChange moved(Shape shape, Rectangle2D before, Rectangle2D after) {
+        return new ModelChange(shape, before.createUnion(after));
+    }
+
+
+    // ***** EXTRA *****
+
+    /**
+     * Return a String with the ModelChange Shape and damage.
+     * This method toString() is override from Object class.
+     * @return a String with the ModelChange Shape and damage.
+     */
+    @Override
+    public String toString() {
+        return "ModelChange{shape=" + shape + ", damage=" + (damage == null ? "everything" : damage) + '}';
+    }
+
+}
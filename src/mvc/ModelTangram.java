@@ -2,15 +2,24 @@ package mvc;
 
 
 import geometry.Angle;
+import geometry.ConvexBody;
 import geometry.Point;
+import geometry.SatCollider;
+import geometry.SpatialGrid;
 import geometry.Vector;
 import shapes.*;
+import shapes.Polygon;
 import shapes.Rectangle;
 import shapes.Shape;
+import solver.Pose;
+import solver.Solution;
 
 import java.awt.*;
+import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Observable;
 
 /**
@@ -20,17 +29,26 @@ import java.util.Observable;
  * ModelTangram class.
  * It's the Model of the MVC application model.
  * Extends java.util.Observable (which is deprecated since java 9).
+ * The notifications carry a ModelChange with the area to paint again.
  */
 
 public class ModelTangram extends Observable {
 
+    // ***** CONSTANTS *****
+    private static final int INDEX_CELL_SIZE = 10 * ViewTangram.STEP;
+    private static final double CONTACT_TOLERANCE = 1e-6;
+
     // ***** FIELDS *****
     private final ArrayList<Shape> shapesToFill;
     private final ArrayList<Group> tangramPieces;
+    private final List<Group> pieceSet;
+    private final SpatialGrid<Group> piecesIndex;
+    private final WinTracker winTracker;
     private final Square whiteSquare;
     private final Triangle whiteTriangle;
     private final Rectangle whiteRectangle;
     private final Parallelogram whiteParallelogram;
+    private long targetChanges;
 
 
     /**
@@ -41,8 +59,8 @@ public class ModelTangram extends Observable {
      * 1. Controller listens events from the View.
      * 2. Controller modifies the Model according to the events.
      * 3. Model notifies the View if changes were made.
-     * 4. View updates a boolean if it receives notifications.
-     * 5. The thread check the boolean and repaint() if it's necessary.
+     * 4. View asks a frame to its RenderScheduler if it receives notifications.
+     * 5. The RenderScheduler coalesces the requests in one repaint() per display refresh.
      */
     public ModelTangram() {
 
@@ -132,6 +150,16 @@ public class ModelTangram extends Observable {
         Group group7 = new Group(color7, Arrays.asList(parallelogram, center7));
         tangramPieces.add(group7);
 
+        // Creation order, not changed by the z-order
+        pieceSet = Collections.unmodifiableList(new ArrayList<>(tangramPieces));
+
+        // Spatial index : inserted from back to front to keep the list z-order
+        piecesIndex = new SpatialGrid<>(INDEX_CELL_SIZE);
+        for (int i = tangramPieces.size() - 1; i >= 0; i--) piecesIndex.put(tangramPieces.get(i), tangramPieces.get(i).getBoundingBox());
+
+        // Incremental win state
+        winTracker = new WinTracker(this);
+
     }
 
 
@@ -143,6 +171,35 @@ public class ModelTangram extends Observable {
      */
     public ArrayList<Group> getTangramPieces() { return tangramPieces; }
 
+    /**
+     * Get the Tangram pieces in their creation order,
+     * which does not change when a piece is put at the front.
+     * The solver poses use the indexes of this List.
+     * @return an unmodifiable List of Group.
+     */
+    public List<Group> getPieceSet() { return pieceSet; }
+
+    /**
+     * Get the Polygon of each Tangram piece in their creation order.
+     * @return a new List of Polygon, with the same indexes as getPieceSet().
+     */
+    public List<Polygon> getPiecePolygons() {
+        List<Polygon> polygons = new ArrayList<>();
+        for (Group piece : pieceSet) polygons.add((Polygon) piece.getShapeGroup().get(0));
+        return polygons;
+    }
+
+    /**
+     * Get the board version stamp.
+     * It grows each time a Tangram piece is modified or the front shape to fill changes.
+     * @return the board version stamp.
+     */
+    public long getBoardVersion() {
+        long version = targetChanges;
+        for (Group piece : pieceSet) version += piece.getVersion();
+        return version;
+    }
+
     /**
      * Get the Group representing the front piece from the ArrayList of Group storing Tangram pieces.
      * @return the Group representing  front piece from the ArrayList of Group storing Tangram pieces.
@@ -186,8 +243,103 @@ public class ModelTangram extends Observable {
     public Parallelogram getWhiteParallelogram() { return whiteParallelogram; }
 
 
+    /**
+     * Get the topmost Tangram piece whose Shape (index 0) contains a Point.
+     * Only the pieces registered in the spatial index cell of the Point are tested.
+     * @param point a Point, usually the mouse position.
+     * @return the topmost Group containing the Point, or null.
+     */
+    public Group getPieceAt(Point point) {
+        return piecesIndex.topmost(point.getX(), point.getY(),
+                piece -> piece.getShapeGroup().get(0).contains(point.getX(), point.getY()));
+    }
+
+    /**
+     * Get all the Tangram pieces whose bounding box intersects a rectangle.
+     * @param rect a rectangle in the View coordinates.
+     * @return a new List of Group, the front piece first.
+     */
+    public List<Group> getPiecesIn(Rectangle2D rect) {
+        return piecesIndex.query(rect);
+    }
+
+
+    /**
+     * Get the deepest collision of the front piece with the other convex pieces,
+     * tested with the separating axis theorem against its neighbours from the spatial index.
+     * Two pieces which only touch do not collide.
+     * @return the Contact whose translation moves the front piece out of the deepest collision,
+     * or null if the front piece is concave or overlaps no convex piece.
+     */
+    public SatCollider.Contact getFrontContact() {
+        Group front = getFrontPiece();
+        ConvexBody body = ((Polygon) front.getShapeGroup().get(0)).getConvexBody();
+        if (body == null) return null;
+        SatCollider.Contact deepest = null;
+        for (Group other : getPiecesIn(front.getBoundingBox())) {
+            if (other == front) continue;
+            ConvexBody otherBody = ((Polygon) other.getShapeGroup().get(0)).getConvexBody();
+            if (otherBody == null) continue;
+            SatCollider.Contact contact = SatCollider.collide(body, otherBody);
+            if (contact == null || contact.getDepth() <= CONTACT_TOLERANCE) continue;
+            if (deepest == null || contact.getDepth() > deepest.getDepth()) deepest = contact;
+        }
+        return deepest;
+    }
+
+    /**
+     * Check if the Tangram is complete for the front shape to fill.
+     * Only the pieces modified since the last call are checked again,
+     * against their neighbours from the spatial index.
+     * @return true if the Tangram is complete.
+     */
+    public boolean isWin() {
+        return winTracker.isWin();
+    }
+
+
     // ***** METHODS *****
 
+    /**
+     * Update the spatial index entry and the win state of a Tangram piece.
+     * Must be called when a piece is modified outside of this Model methods
+     * (e.g. when the Controller aligns it to the grid).
+     * @param piece the Group that was modified.
+     */
+    public void refreshPiece(Group piece) {
+        piecesIndex.put(piece, piece.getBoundingBox());
+        winTracker.pieceChanged(piece);
+    }
+
+    /**
+     * Move a Tangram piece to a Pose found by a solver.
+     * The Group is rotated around the first vertex of its Polygon,
+     * moved on the Pose, then the Polygon takes the exact Pose vertices.
+     * @param pose a Pose, its piece index refers to getPieceSet().
+     */
+    public void applyPose(Pose pose) {
+        Group piece = pieceSet.get(pose.getPiece());
+        Rectangle2D before = piece.getBoundingBox();
+        Polygon polygon = (Polygon) piece.getShapeGroup().get(0);
+        Point first = polygon.getVertices().get(0);
+        piece.rotate(first, Angle.octant(pose.getOctant()));
+        Point target = pose.getVertices().get(0);
+        Point moved = polygon.getVertices().get(0);
+        piece.translate(new Vector(moved, target));
+        polygon.setVertices(pose.getVertices());
+        refreshPiece(piece);
+        setChanged();
+        notifyObservers(ModelChange.moved(piece, before, piece.getBoundingBox()));
+    }
+
+    /**
+     * Move all the Tangram pieces to a Solution found by a solver.
+     * @param solution a Solution for the pieces of getPieceSet().
+     */
+    public void applySolution(Solution solution) {
+        for (Pose pose : solution.getPoses()) applyPose(pose);
+    }
+
     /**
      * Put the Group representing a Tangram piece at the front of
      * the ArrayList of Group storing Tangram pieces.
@@ -196,8 +348,9 @@ public class ModelTangram extends Observable {
     public void putTangramPieceAtFront(Group piece) {
         tangramPieces.remove(piece);
         tangramPieces.add(0, piece);
+        piecesIndex.bringToFront(piece);
         setChanged();
-        notifyObservers();
+        notifyObservers(new ModelChange(piece, piece.getBoundingBox()));
     }
 
     /**
@@ -208,8 +361,9 @@ public class ModelTangram extends Observable {
     public void putShapeToFillAtFront(Shape shape) {
         shapesToFill.remove(shape);
         shapesToFill.add(0, shape);
+        targetChanges++;
         setChanged();
-        notifyObservers();
+        notifyObservers(ModelChange.everything());
     }
 
     /**
@@ -219,9 +373,11 @@ public class ModelTangram extends Observable {
      * and the distance to move.
      */
     public void translateFrontPiece(Vector vector) {
+        Rectangle2D before = getFrontPiece().getBoundingBox();
         getFrontPiece().translate(vector);
+        refreshPiece(getFrontPiece());
         setChanged();
-        notifyObservers();
+        notifyObservers(ModelChange.moved(getFrontPiece(), before, getFrontPiece().getBoundingBox()));
     }
 
     /**
@@ -230,9 +386,11 @@ public class ModelTangram extends Observable {
      * @param angle an Angle to rotate.
      */
     public void rotateFrontShape(Angle angle) {
+        Rectangle2D before = getFrontPiece().getBoundingBox();
         getFrontPiece().rotate(angle);
+        refreshPiece(getFrontPiece());
         setChanged();
-        notifyObservers();
+        notifyObservers(ModelChange.moved(getFrontPiece(), before, getFrontPiece().getBoundingBox()));
     }
 
 }
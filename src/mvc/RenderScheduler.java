@@ -0,0 +1,326 @@
+package mvc;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * RenderScheduler class.
+ * Turns the frame requests of the View (Model notifications, from any thread)
+ * into at most one repaint per display refresh.
+ * Its thread is parked while nothing is requested, so an idle board costs nothing.
+ * In the normal mode the frames are aligned on the refresh period and repainted
+ * through the RepaintManager. In the low latency mode (during a drag) a frame starts
+ * as soon as one period passed since the previous one and is painted immediately,
+ * so a request waits at most one period.
+ * A request can carry a damage rectangle : the frame repaints the union of the damages
+ * of its requests, or the whole component if a request had no damage.
+ * The frame pacing statistics are measured when the View reports its painted frames.
+ */
+
+public class RenderScheduler {
+
+    // ***** NESTED CLASS *****
+
+    /**
+     * A snapshot of the frame pacing statistics.
+     * This class is immutable.
+     */
+    public static final class FrameStats {
+        private final long frames;
+        private final long requests;
+        private final double meanIntervalMillis;
+        private final double maxIntervalMillis;
+        private final double meanLatencyMillis;
+        private final double maxLatencyMillis;
+
+        private FrameStats(long frames, long requests, double meanIntervalMillis, double maxIntervalMillis,
+                           double meanLatencyMillis, double maxLatencyMillis) {
+            this.frames = frames;
+            this.requests = requests;
+            this.meanIntervalMillis = meanIntervalMillis;
+            this.maxIntervalMillis = maxIntervalMillis;
+            this.meanLatencyMillis = meanLatencyMillis;
+            this.maxLatencyMillis = maxLatencyMillis;
+        }
+
+        /**
+         * Get the number of painted frames.
+         * @return the number of frames.
+         */
+        public long getFrames() { return frames; }
+
+        /**
+         * Get the number of frame requests, several requests are coalesced in one frame.
+         * @return the number of requests.
+         */
+        public long getRequests() { return requests; }
+
+        /**
+         * Get the mean time between two painted frames.
+         * @return the mean interval in milliseconds.
+         */
+        public double getMeanIntervalMillis() { return meanIntervalMillis; }
+
+        /**
+         * Get the longest time between two painted frames.
+         * @return the maximum interval in milliseconds.
+         */
+        public double getMaxIntervalMillis() { return maxIntervalMillis; }
+
+        /**
+         * Get the mean time from the first request of a frame to its painting.
+         * @return the mean latency in milliseconds.
+         */
+        public double getMeanLatencyMillis() { return meanLatencyMillis; }
+
+        /**
+         * Get the longest time from the first request of a frame to its painting.
+         * @return the maximum latency in milliseconds.
+         */
+        public double getMaxLatencyMillis() { return maxLatencyMillis; }
+
+        /**
+         * Return a String with the FrameStats values.
+         * This method toString() is override from Object class.
+         * @return a String with the FrameStats values.
+         */
+        @Override
+        public String toString() {
+            return String.format("FrameStats{frames=%d, requests=%d, interval=%.1f/%.1f ms, latency=%.1f/%.1f ms}",
+                    frames, requests, meanIntervalMillis, maxIntervalMillis, meanLatencyMillis, maxLatencyMillis);
+        }
+    }
+
+
+    // ***** CONSTANTS *****
+    public static final int DEFAULT_REFRESH_RATE = 60;
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final int DAMAGE_MARGIN = 2;
+
+    // ***** FIELDS *****
+    private final JComponent component;
+    private final long periodNanos;
+    private final long origin;
+    private final Thread thread;
+    private final Object lock;
+    private volatile boolean pending;
+    private Rectangle2D damage;
+    private boolean damageAll;
+    private final AtomicBoolean issued;
+    private final LongAdder requests;
+    private volatile long requestedAt;
+    private volatile long issuedRequestAt;
+    private volatile boolean lowLatency;
+    private volatile boolean running;
+    private long lastIssue;
+
+    // Statistics, updated on the Swing thread
+    private long frames;
+    private long lastPaint;
+    private long intervalSum;
+    private long intervalMax;
+    private long latencySum;
+    private long latencyCount;
+    private long latencyMax;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct a RenderScheduler paced on the display refresh rate and start its thread.
+     * @param component the component to repaint.
+     */
+    public RenderScheduler(JComponent component) {
+        this(component, refreshRate());
+    }
+
+    /**
+     * Construct a RenderScheduler and start its thread.
+     * @param component the component to repaint.
+     * @param refreshRate the maximum number of frames per second.
+     */
+    public RenderScheduler(JComponent component, int refreshRate) {
+        this.component = component;
+        this.periodNanos = TimeUnit.SECONDS.toNanos(1) / refreshRate;
+        this.origin = System.nanoTime();
+        this.lastIssue = origin - periodNanos;
+        this.lock = new Object();
+        this.issued = new AtomicBoolean();
+        this.requests = new LongAdder();
+        this.running = true;
+        this.thread = new Thread(this::run, "RenderScheduler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+
+    // ***** GETTERS *****
+
+    /**
+     * Get the time between two frames.
+     * @return the refresh period in nanoseconds.
+     */
+    public long getPeriodNanos() { return periodNanos; }
+
+    /**
+     * Check if the low latency mode is on.
+     * @return true during a drag.
+     */
+    public boolean isLowLatency() { return lowLatency; }
+
+    /**
+     * Turn the low latency mode on (at the start of a drag) or off.
+     * @param lowLatency true to paint each frame as soon as possible.
+     */
+    public void setLowLatency(boolean lowLatency) {
+        this.lowLatency = lowLatency;
+    }
+
+    /**
+     * Get a snapshot of the frame pacing statistics.
+     * Must be called on the Swing thread.
+     * @return a new FrameStats.
+     */
+    public FrameStats getStats() {
+        long intervals = Math.max(1, frames - 1);
+        long latencies = Math.max(1, latencyCount);
+        return new FrameStats(frames, requests.sum(),
+                intervalSum / NANOS_PER_MILLI / intervals, intervalMax / NANOS_PER_MILLI,
+                latencySum / NANOS_PER_MILLI / latencies, latencyMax / NANOS_PER_MILLI);
+    }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Ask a frame of the whole component, from any thread.
+     * The requests made before the frame starts are coalesced in this frame.
+     */
+    public void requestFrame() {
+        requestFrame(null);
+    }
+
+    /**
+     * Ask a frame of a part of the component, from any thread.
+     * The requests made before the frame starts are coalesced in this frame.
+     * @param area the damage rectangle to repaint, or null for the whole component.
+     */
+    public void requestFrame(Rectangle2D area) {
+        requests.increment();
+        boolean wake;
+        synchronized (lock) {
+            if (area == null) damageAll = true;
+            else if (!damageAll) damage = damage == null ? (Rectangle2D) area.clone() : damage.createUnion(area);
+            wake = !pending;
+            if (wake) {
+                requestedAt = System.nanoTime();
+                pending = true;
+            }
+        }
+        if (wake) LockSupport.unpark(thread);
+    }
+
+    /**
+     * Report a painted frame, called by the component at the end of its painting.
+     * Must be called on the Swing thread.
+     */
+    public void framePainted() {
+        long now = System.nanoTime();
+        if (frames > 0) {
+            long interval = now - lastPaint;
+            intervalSum += interval;
+            intervalMax = Math.max(intervalMax, interval);
+        }
+        // Paintings not asked by the scheduler (e.g. window exposure) have no latency
+        if (issued.getAndSet(false)) {
+            long latency = now - issuedRequestAt;
+            latencySum += latency;
+            latencyCount++;
+            latencyMax = Math.max(latencyMax, latency);
+        }
+        lastPaint = now;
+        frames++;
+    }
+
+    /**
+     * Clear the frame pacing statistics.
+     * Must be called on the Swing thread.
+     */
+    public void resetStats() {
+        frames = 0;
+        intervalSum = 0;
+        intervalMax = 0;
+        latencySum = 0;
+        latencyCount = 0;
+        latencyMax = 0;
+        requests.reset();
+    }
+
+    /**
+     * Stop the thread of the scheduler.
+     */
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Scheduler loop : park until a request, wait for the frame time, then repaint.
+     */
+    private void run() {
+        while (running) {
+            if (!pending) {
+                LockSupport.park(this);
+                continue;
+            }
+            long now = System.nanoTime();
+            long due;
+            if (lowLatency) {
+                due = Math.max(now, lastIssue + periodNanos);
+            } else {
+                // Next refresh boundary, at least one period after the previous frame
+                long boundary = origin + ((now - origin + periodNanos - 1) / periodNanos) * periodNanos;
+                due = Math.max(boundary, lastIssue + periodNanos);
+            }
+            while (running && System.nanoTime() - due < 0) LockSupport.parkNanos(this, due - System.nanoTime());
+            Rectangle area;
+            synchronized (lock) {
+                issuedRequestAt = requestedAt;
+                area = damageAll || damage == null ? null : damage.getBounds();
+                damage = null;
+                damageAll = false;
+                pending = false;
+            }
+            issued.set(true);
+            lastIssue = System.nanoTime();
+            if (area == null) area = new Rectangle(0, 0, component.getWidth(), component.getHeight());
+            else area.grow(DAMAGE_MARGIN, DAMAGE_MARGIN);
+            Rectangle clip = area;
+            if (lowLatency) SwingUtilities.invokeLater(() -> component.paintImmediately(clip));
+            else component.repaint(clip);
+        }
+    }
+
+
+    // ***** STATIC METHODS *****
+
+    /**
+     * Get the refresh rate of the default screen.
+     * @return the refresh rate in Hz, DEFAULT_REFRESH_RATE if it is unknown.
+     */
+    public static int refreshRate() {
+        if (GraphicsEnvironment.isHeadless()) return DEFAULT_REFRESH_RATE;
+        int rate = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                .getDisplayMode().getRefreshRate();
+        return rate == DisplayMode.REFRESH_RATE_UNKNOWN ? DEFAULT_REFRESH_RATE : rate;
+    }
+
+}
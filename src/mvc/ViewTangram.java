@@ -1,7 +1,19 @@
 package mvc;
 
+import geometry.Point;
+import geometry.SatCollider;
+import geometry.Vector;
+import render.Camera;
+import render.LayeredCompositor;
+import render.SpriteCache;
+import shapes.Group;
+
 import javax.swing.*;
 import java.awt.*;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Observable;
 import java.util.Observer;
 
@@ -15,11 +27,13 @@ import java.util.Observer;
  * 1. Controller listens events from the View.
  * 2. Controller modifies the Model according to the events.
  * 3. Model notifies the View if changes were made.
- * 4. View updates a boolean if it receives notifications.
- * 5. The thread check the boolean and repaint() if it's necessary.
+ * 4. View asks a frame to its RenderScheduler if it receives notifications.
+ * 5. The RenderScheduler coalesces the requests in one repaint() per display refresh.
+ * 6. The LayeredCompositor renders again the invalid parts of its cached layers and composes them.
+ * The Model is in the world coordinates, drawn on the screen through the zoom and pan of a Camera.
  */
 
-public class ViewTangram extends JPanel implements Observer, Runnable {
+public class ViewTangram extends JPanel implements Observer {
 
     // ***** FIELDS *****
 
@@ -29,6 +43,11 @@ public class ViewTangram extends JPanel implements Observer, Runnable {
     public static final int HEIGHT = 600;
     public static final Color BACKGROUND_COLOR = Color.lightGray;
     public static final Color WIN_BACKGROUND_COLOR = Color.BLACK;
+    public static final Color HINT_COLOR = Color.WHITE;
+    public static final Color CONTACT_COLOR = Color.RED;
+    private static final Stroke HINT_STROKE = new BasicStroke(2, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER,
+            10, new float[]{STEP / 2f, STEP / 2f}, 0);
+    private static final BasicStroke CONTACT_STROKE = new BasicStroke(2);
 
     // Model
     private final ModelTangram model;
@@ -45,10 +64,27 @@ public class ViewTangram extends JPanel implements Observer, Runnable {
     JMenuItem triangleItem;
     JMenuItem rectangleItem;
     JMenuItem parallelogramItem;
+    JMenuItem hintItem;
+
+    // Repaint scheduling
+    private final RenderScheduler scheduler;
+
+    // Zoom and pan
+    private final Camera camera;
+
+    // Pre-rendered pieces and layers
+    private final SpriteCache spriteCache;
+    private final LayeredCompositor compositor;
+
+    // Label of the percentage of the shape to fill covered by the pieces
+    private String coveredLabel = coveredLabel(0);
 
-    // Thread for Game Loop
-    private final Thread thread;
-    private boolean dirty;
+    // Outline of the next piece to place, null if there is no hint
+    private List<Point> hint;
+
+    // Collision of the dragged piece and its screen area, null if it overlaps nothing
+    private SatCollider.Contact contact;
+    private Rectangle2D contactArea;
 
 
     // ***** CONSTRUCTOR *****
@@ -57,7 +93,7 @@ public class ViewTangram extends JPanel implements Observer, Runnable {
      * Construct a View.
      * Store the Model.
      * Panel settings, JButtons and JPopupMenu creations.
-     * Request the focus and start a new Thread for repainting.
+     * Request the focus and start the RenderScheduler.
      * @param model an object from ModelTangram class.
      */
     public ViewTangram(ModelTangram model) {
@@ -74,8 +110,10 @@ public class ViewTangram extends JPanel implements Observer, Runnable {
         // Graphics adjustment
         this.setFocusable(true);
         this.requestFocusInWindow();
-        thread = new Thread(this);
-        thread.start();
+        camera = new Camera();
+        spriteCache = new SpriteCache();
+        compositor = new LayeredCompositor(spriteCache, camera);
+        scheduler = new RenderScheduler(this);
     }
 
 
@@ -135,52 +173,242 @@ public class ViewTangram extends JPanel implements Observer, Runnable {
      */
     public JMenuItem getParallelogramItem() { return parallelogramItem; }
 
+    /**
+     * Get the "Hint" item of the JPopupMenu.
+     * @return the "Hint" item of the JPopupMenu.
+     */
+    public JMenuItem getHintItem() { return hintItem; }
 
-    // ***** METHODS *****
+    /**
+     * Get the RenderScheduler of the View.
+     * @return the RenderScheduler.
+     */
+    public RenderScheduler getRenderScheduler() { return scheduler; }
 
     /**
-     * Game Loop.
-     * In progress but it actually works.
+     * Get the SpriteCache of the Tangram pieces.
+     * @return the SpriteCache.
      */
-    @Override
-    public void run() {
-        while (thread != null) {
-            try {
-                Thread.sleep(1000/60);  // 60 fps
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
-            if (dirty) {
-                repaint();
-                dirty = false;
-            }
-        }
+    public SpriteCache getSpriteCache() { return spriteCache; }
+
+    /**
+     * Get the Camera of the View, to convert the mouse positions to the world.
+     * @return the Camera.
+     */
+    public Camera getCamera() { return camera; }
+
+    /**
+     * Get the LayeredCompositor of the View.
+     * @return the LayeredCompositor.
+     */
+    public LayeredCompositor getCompositor() { return compositor; }
+
+    /**
+     * Set the piece being dragged, drawn in the active layer over the cached resting pieces.
+     * Must be called on the Swing thread.
+     * @param piece the Group being dragged, or null at the end of the drag.
+     */
+    public void setActivePiece(Group piece) {
+        Group previous = compositor.getActivePiece();
+        if (piece == previous) return;
+        compositor.setActivePiece(piece);
+        if (previous != null) scheduler.requestFrame(camera.toScreenDamage(previous.getBoundingBox()));
+        if (piece != null) scheduler.requestFrame(camera.toScreenDamage(piece.getBoundingBox()));
+    }
+
+    /**
+     * Zoom the View around a screen point.
+     * Must be called on the Swing thread.
+     * @param factor the zoom factor to apply.
+     * @param x the screen x coordinates which stays on the same world point.
+     * @param y the screen y coordinates which stays on the same world point.
+     */
+    public void zoom(double factor, int x, int y) {
+        camera.zoom(factor, x, y);
+        scheduler.requestFrame();
     }
 
+    /**
+     * Pan the View.
+     * Must be called on the Swing thread.
+     * @param dx the horizontal move in screen pixels.
+     * @param dy the vertical move in screen pixels.
+     */
+    public void pan(int dx, int dy) {
+        camera.pan(dx, dy);
+        scheduler.requestFrame();
+    }
+
+
+    /**
+     * Set the percentage of the shape to fill covered by the pieces.
+     * Only the area of the label is painted again, and nothing if the rounded percentage is unchanged.
+     * Must be called on the Swing thread.
+     * @param coveredPercent a value between 0 and 100.
+     */
+    public void setCoveredPercent(double coveredPercent) {
+        String label = coveredLabel(coveredPercent);
+        if (label.equals(coveredLabel)) return;
+        Rectangle area = coveredArea(coveredLabel).union(coveredArea(label));
+        coveredLabel = label;
+        scheduler.requestFrame(area);
+    }
+
+    /**
+     * Set the outline of the next piece to place, drawn over the pieces.
+     * @param hint the vertices of the piece Pose, or null to remove the hint.
+     */
+    public void setHint(List<Point> hint) {
+        this.hint = hint == null ? null : new ArrayList<>(hint);
+        scheduler.requestFrame();
+    }
+
+
+    /**
+     * Set the collision of the dragged piece with the other pieces, drawn as a red outline
+     * of the piece and a line along the translation which would separate it.
+     * Only the screen areas of the previous and the new collision are painted again.
+     * Must be called on the Swing thread.
+     * @param contact the Contact of the front piece, or null if it overlaps nothing.
+     */
+    public void setContact(SatCollider.Contact contact) {
+        if (contact == null && this.contact == null) return;
+        this.contact = contact;
+        if (contactArea != null) scheduler.requestFrame(contactArea);
+        contactArea = contact == null ? null : contactArea();
+        if (contactArea != null) scheduler.requestFrame(contactArea);
+    }
+
+
+    // ***** METHODS *****
+
     /**
      * Update is called when the Model notifies the View it has changed.
+     * Only the damage area of a ModelChange is painted again.
+     * The moves of the active piece do not invalidate the cached layers,
+     * the other changes invalidate their damage area in the resting layer.
+     * Must be called on the Swing thread.
      * @param o the observable object.
      * @param arg an argument passed to the {@code notifyObservers} method.
      */
     @Override
     public void update(Observable o, Object arg) {
-        dirty = true;
+        if (!(arg instanceof ModelChange) || ((ModelChange) arg).isEverything()) {
+            compositor.invalidate();
+            scheduler.requestFrame();
+            return;
+        }
+        ModelChange change = (ModelChange) arg;
+        Rectangle2D damage = change.getDamage();
+        Group active = compositor.getActivePiece();
+        if (active == null || change.getShape() != active) compositor.invalidateResting(damage);
+        scheduler.requestFrame(camera.toScreenDamage(damage));
     }
 
     /**
      * Override of paintComponent(Graphics) method from JComponent.
      * Cast Graphics to Graphics2D.
      * Draw the Tangram shapes to fill and pieces from the model.
+     * The background, the shape to fill and the resting pieces come from the cached
+     * layers of the LayeredCompositor (which also paints the background of the panel),
+     * the active piece is drawn over them. Only the pieces visible through the Camera are drawn.
      * @param g the <code>Graphics</code> object to protect.
      */
     @Override
     protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
         Graphics2D g2D = (Graphics2D) g;
-        model.getFrontShapeToFill().g2DFill(g2D);
-        for (int i = model.getTangramPieces().size() - 1; i >= 0; i--) {
-            model.getTangramPieces().get(i).g2DFill(g2D);
-        }
+        compositor.paint(g2D, getWidth(), getHeight(), getBackground(), model.getFrontShapeToFill(),
+                model::getPiecesIn);
+        if (hint != null) drawHint(g2D);
+        if (contact != null) drawContact(g2D);
+        g2D.setColor(Color.DARK_GRAY);
+        g2D.drawString(coveredLabel, STEP, HEIGHT - STEP);
+        scheduler.framePainted();
+    }
+
+    /**
+     * Draw the dashed outline of the hint.
+     */
+    private void drawHint(Graphics2D g2D) {
+        Path2D path = new Path2D.Double();
+        path.moveTo(hint.get(0).getX(), hint.get(0).getY());
+        for (int i = 1; i < hint.size(); i++) path.lineTo(hint.get(i).getX(), hint.get(i).getY());
+        path.closePath();
+        Stroke stroke = g2D.getStroke();
+        g2D.setColor(HINT_COLOR);
+        g2D.setStroke(HINT_STROKE);
+        g2D.draw(camera.getTransform().createTransformedShape(path));
+        g2D.setStroke(stroke);
+    }
+
+    /**
+     * Get the screen area of a covered label drawn at (STEP, HEIGHT - STEP).
+     */
+    private Rectangle coveredArea(String label) {
+        FontMetrics metrics = getFontMetrics(getFont());
+        Rectangle area = new Rectangle(STEP, HEIGHT - STEP - metrics.getAscent(),
+                metrics.stringWidth(label), metrics.getAscent() + metrics.getDescent());
+        area.grow(1, 1);
+        return area;
+    }
+
+    /**
+     * Format the label of a covered percentage.
+     */
+    private static String coveredLabel(double coveredPercent) {
+        return String.format("Covered : %.0f %%", coveredPercent);
+    }
+
+    /**
+     * Draw the outline of the front piece and the line from its center
+     * along the translation of the contact.
+     */
+    private void drawContact(Graphics2D g2D) {
+        Point center = pieceOf(model.getFrontPiece()).getCenter();
+        Vector translation = contact.getTranslation();
+        Path2D path = outlineOf(model.getFrontPiece());
+        path.moveTo(center.getX(), center.getY());
+        path.lineTo(center.getX() + translation.getDx(), center.getY() + translation.getDy());
+        Stroke stroke = g2D.getStroke();
+        g2D.setColor(CONTACT_COLOR);
+        g2D.setStroke(CONTACT_STROKE);
+        g2D.draw(camera.getTransform().createTransformedShape(path));
+        g2D.setStroke(stroke);
+    }
+
+    /**
+     * Get the screen area of the contact drawing : the front piece and the translation line,
+     * grown by the width of the stroke.
+     */
+    private Rectangle2D contactArea() {
+        Point center = pieceOf(model.getFrontPiece()).getCenter();
+        Vector translation = contact.getTranslation();
+        Rectangle2D area = model.getFrontPiece().getBoundingBox();
+        area.add(center.getX() + translation.getDx(), center.getY() + translation.getDy());
+        Rectangle2D screen = camera.toScreenDamage(area);
+        screen.setRect(screen.getX() - CONTACT_STROKE.getLineWidth(), screen.getY() - CONTACT_STROKE.getLineWidth(),
+                screen.getWidth() + 2 * CONTACT_STROKE.getLineWidth(),
+                screen.getHeight() + 2 * CONTACT_STROKE.getLineWidth());
+        return screen;
+    }
+
+    /**
+     * Get the closed outline of the Polygon of a Tangram piece.
+     */
+    private static Path2D outlineOf(Group piece) {
+        shapes.Polygon polygon = pieceOf(piece);
+        Path2D path = new Path2D.Double();
+        path.moveTo(polygon.getVertexX(0), polygon.getVertexY(0));
+        for (int i = 1; i < polygon.getVertexCount(); i++) path.lineTo(polygon.getVertexX(i), polygon.getVertexY(i));
+        path.closePath();
+        return path;
+    }
+
+    /**
+     * Get the Polygon of a Tangram piece (index 0 of the Group).
+     */
+    private static shapes.Polygon pieceOf(Group piece) {
+        return (shapes.Polygon) piece.getShapeGroup().get(0);
     }
 
     /**
@@ -214,6 +442,9 @@ public class ViewTangram extends JPanel implements Observer, Runnable {
         jPopupMenu.add(triangleItem);
         jPopupMenu.add(rectangleItem);
         jPopupMenu.add(parallelogramItem);
+        hintItem = new JMenuItem("Hint");
+        jPopupMenu.addSeparator();
+        jPopupMenu.add(hintItem);
         this.add(jPopupMenu);
     }
 
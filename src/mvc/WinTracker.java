@@ -0,0 +1,235 @@
+package mvc;
+
+import shapes.Group;
+import shapes.Polygon;
+import shapes.Shape;
+import geometry.ConvexBody;
+import geometry.Point;
+import geometry.SatCollider;
+import geometry.SweepAndPrune;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * WinTracker class.
+ * Keeps the win state of the ModelTangram up to date incrementally :
+ * a sparse overlap matrix between the Tangram pieces,
+ * an "inside the shape to fill" flag for each piece
+ * and the sum of the pieces areas.
+ * When a piece moves, only its row of the matrix is recomputed,
+ * against the neighbours given by the spatial index of the Model.
+ * When most of the pieces changed (a new game, a solution applied),
+ * the whole matrix is rebuilt at once with the batch mode of the SatCollider.
+ * A pair with a convex piece is decided by its clipped overlap area,
+ * a pair of concave pieces by the sort and prune crossing test.
+ */
+
+class WinTracker {
+
+    // ***** CONSTANTS *****
+    private static final double OVERLAP_TOLERANCE = 1e-6;
+    private static final double AREA_TOLERANCE = 0.5;
+    private static final double CONCAVE_SHRINK = 0.999;
+
+    // ***** FIELDS *****
+    private final ModelTangram model;
+    private final Map<Group, Set<Group>> overlaps;
+    private final Map<Group, Boolean> inside;
+    private final Map<Group, Double> areas;
+    private final Set<Group> dirtyPieces;
+    private final SweepAndPrune sweepAndPrune;
+    private int overlappingPairs;
+    private int insideCount;
+    private double piecesArea;
+    private Shape target;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct a WinTracker for a Model.
+     * All the pieces are considered as modified.
+     * @param model a ModelTangram object.
+     */
+    WinTracker(ModelTangram model) {
+        this.model = model;
+        this.overlaps = new IdentityHashMap<>();
+        this.inside = new IdentityHashMap<>();
+        this.areas = new IdentityHashMap<>();
+        this.dirtyPieces = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.sweepAndPrune = new SweepAndPrune();
+        for (Group piece : model.getTangramPieces()) pieceChanged(piece);
+    }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Mark a piece as modified : its state is recomputed at the next isWin() call.
+     * @param piece the Group that was modified.
+     */
+    void pieceChanged(Group piece) {
+        dirtyPieces.add(piece);
+    }
+
+    /**
+     * Check if the Tangram is complete :
+     * no overlapping pair, all pieces inside the shape to fill,
+     * and the sum of the pieces areas equal to the area of the shape to fill.
+     * Only the pieces modified since the last call are updated.
+     * @return true if the Tangram is complete.
+     */
+    boolean isWin() {
+        Shape front = model.getFrontShapeToFill();
+        if (!(front instanceof Polygon)) return false;
+        if (front != target) {
+            // New shape to fill : every inside flag must be recomputed
+            target = front;
+            for (Group piece : model.getTangramPieces()) updateInside(piece);
+        }
+        boolean rebuild = dirtyPieces.size() * 2 >= model.getTangramPieces().size();
+        for (Group piece : dirtyPieces) {
+            updateInside(piece);
+            updateArea(piece);
+            if (!rebuild) updateOverlaps(piece);
+        }
+        if (rebuild) rebuildOverlaps();
+        dirtyPieces.clear();
+        return overlappingPairs == 0
+                && insideCount == model.getTangramPieces().size()
+                && Math.abs(piecesArea - ((Polygon) target).getArea()) <= AREA_TOLERANCE;
+    }
+
+    /**
+     * Recompute the "inside the shape to fill" flag of a piece :
+     * the piece clipped by the shape to fill keeps its whole area.
+     */
+    private void updateInside(Group group) {
+        Polygon piece = pieceOf(group);
+        boolean isInside = piece.overlapArea((Polygon) target) >= piece.getArea() - AREA_TOLERANCE;
+        Boolean previous = inside.put(group, isInside);
+        if (previous != null && previous) insideCount--;
+        if (isInside) insideCount++;
+    }
+
+    /**
+     * Recompute the area of a piece inside the sum of the pieces areas.
+     */
+    private void updateArea(Group group) {
+        double area = pieceOf(group).getArea();
+        Double previous = areas.put(group, area);
+        if (previous != null) piecesArea -= previous;
+        piecesArea += area;
+    }
+
+    /**
+     * Recompute the row of a piece inside the overlap matrix,
+     * against its neighbours from the spatial index.
+     */
+    private void updateOverlaps(Group group) {
+        Set<Group> row = overlaps.computeIfAbsent(group, g -> Collections.newSetFromMap(new IdentityHashMap<>()));
+        for (Group other : row) {
+            overlaps.get(other).remove(group);
+            overlappingPairs--;
+        }
+        row.clear();
+        Polygon piece = pieceOf(group);
+        for (Group other : model.getPiecesIn(piece.getBoundingBox())) {
+            if (other != group && piecesOverlap(piece, pieceOf(other))) addOverlap(group, other);
+        }
+    }
+
+    /**
+     * Rebuild the whole overlap matrix.
+     * The pairs of convex pieces come from the batch mode of the SatCollider
+     * (sorted by their left side, only the pairs with overlapping boxes are tested)
+     * and are confirmed by their clipped overlap area.
+     * The pairs with a concave piece are tested against its neighbours from the spatial index.
+     */
+    private void rebuildOverlaps() {
+        overlaps.clear();
+        overlappingPairs = 0;
+        List<Group> convexPieces = new ArrayList<>();
+        List<ConvexBody> bodies = new ArrayList<>();
+        for (Group group : model.getTangramPieces()) {
+            Polygon piece = pieceOf(group);
+            if (!piece.isConvex()) continue;
+            convexPieces.add(group);
+            bodies.add(piece.getConvexBody());
+        }
+        SatCollider.forEachOverlap(bodies, OVERLAP_TOLERANCE, (first, second, depth) -> {
+            Group a = convexPieces.get(first);
+            Group b = convexPieces.get(second);
+            if (pieceOf(a).overlapArea(pieceOf(b)) > AREA_TOLERANCE) addOverlap(a, b);
+            return true;
+        });
+        // A pair of concave pieces is tested once, from the first of the two
+        Set<Group> done = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Group group : model.getTangramPieces()) {
+            Polygon piece = pieceOf(group);
+            if (piece.isConvex()) continue;
+            for (Group other : model.getPiecesIn(piece.getBoundingBox())) {
+                if (other == group || done.contains(other)) continue;
+                if (piecesOverlap(piece, pieceOf(other))) addOverlap(group, other);
+            }
+            done.add(group);
+        }
+    }
+
+    /**
+     * Add an overlapping pair to the matrix.
+     */
+    private void addOverlap(Group group, Group other) {
+        overlaps.computeIfAbsent(group, g -> Collections.newSetFromMap(new IdentityHashMap<>())).add(other);
+        overlaps.computeIfAbsent(other, g -> Collections.newSetFromMap(new IdentityHashMap<>())).add(group);
+        overlappingPairs++;
+    }
+
+    /**
+     * Check if two Tangram pieces overlap with a non-zero area.
+     * Convex pieces are first tested with the separating axis theorem.
+     * Two concave pieces cannot be clipped : they overlap if their slightly shrunk
+     * outlines cross (touching edges are not a crossing once shrunk),
+     * or if a shrunk vertex of one lies inside the other.
+     */
+    private boolean piecesOverlap(Polygon piece, Polygon other) {
+        if (!piece.isConvex() && !other.isConvex()) {
+            if (!piece.getBoundingBox().intersects(other.getBoundingBox())) return false;
+            sweepAndPrune.clear();
+            piece.addSegmentsTo(sweepAndPrune, 0, CONCAVE_SHRINK);
+            other.addSegmentsTo(sweepAndPrune, 1, CONCAVE_SHRINK);
+            return sweepAndPrune.anyCrossing() || shrunkVertexInside(piece, other) || shrunkVertexInside(other, piece);
+        }
+        if (piece.isConvex() && other.isConvex()
+                && SatCollider.depth(piece.getConvexBody(), other.getConvexBody()) <= OVERLAP_TOLERANCE) {
+            return false;
+        }
+        return piece.overlapArea(other) > AREA_TOLERANCE;
+    }
+
+    /**
+     * Check if the first vertex of a piece, shrunk towards its center, lies inside another piece.
+     */
+    private static boolean shrunkVertexInside(Polygon piece, Polygon other) {
+        Point center = piece.getCenter();
+        double x = center.getX() + (piece.getVertexX(0) - center.getX()) * CONCAVE_SHRINK;
+        double y = center.getY() + (piece.getVertexY(0) - center.getY()) * CONCAVE_SHRINK;
+        return other.contains(x, y);
+    }
+
+    /**
+     * Get the Polygon of a Tangram piece (index 0 of the Group).
+     */
+    private static Polygon pieceOf(Group group) {
+        return (Polygon) group.getShapeGroup().get(0);
+    }
+
+}
@@ -0,0 +1,206 @@
+package render;
+
+import geometry.Point;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * Camera class.
+ * The transform from the board (world) coordinates of the Model to the screen
+ * coordinates of the View : screen = world * zoom + offset.
+ * The offset is kept on whole pixels, so at zoom 1 the pieces stay on the pixel grid
+ * and keep their cached sprites.
+ * The version changes with the transform, so the cached layers know when to render again.
+ */
+
+public class Camera {
+
+    // ***** CONSTANTS *****
+    public static final double MIN_ZOOM = 1.0 / 64;
+    public static final double MAX_ZOOM = 8;
+    public static final double LOD_PIXELS = 6;
+
+    // ***** FIELDS *****
+    private double zoom;
+    private double offsetX;
+    private double offsetY;
+    private long version;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct a Camera with the identity transform.
+     */
+    public Camera() {
+        this.zoom = 1;
+    }
+
+
+    // ***** GETTERS *****
+
+    /**
+     * Get the zoom factor.
+     * @return the number of screen pixels of a world unit.
+     */
+    public double getZoom() { return zoom; }
+
+    /**
+     * Get the horizontal offset.
+     * @return the screen x coordinates of the world origin.
+     */
+    public double getOffsetX() { return offsetX; }
+
+    /**
+     * Get the vertical offset.
+     * @return the screen y coordinates of the world origin.
+     */
+    public double getOffsetY() { return offsetY; }
+
+    /**
+     * Get the version of the transform, changed by each zoom or pan.
+     * @return the version.
+     */
+    public long getVersion() { return version; }
+
+    /**
+     * Check if the world is drawn without scaling.
+     * @return true at zoom 1.
+     */
+    public boolean isUnscaled() { return zoom == 1; }
+
+    /**
+     * Get the world to screen transform.
+     * @return a new AffineTransform.
+     */
+    public AffineTransform getTransform() {
+        return new AffineTransform(zoom, 0, 0, zoom, offsetX, offsetY);
+    }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Move the view of the world.
+     * @param dx the horizontal move in screen pixels.
+     * @param dy the vertical move in screen pixels.
+     */
+    public void pan(double dx, double dy) {
+        if (dx == 0 && dy == 0) return;
+        offsetX = Math.round(offsetX + dx);
+        offsetY = Math.round(offsetY + dy);
+        version++;
+    }
+
+    /**
+     * Multiply the zoom factor, keeping a screen point on the same world point.
+     * The zoom is clamped between MIN_ZOOM and MAX_ZOOM.
+     * @param factor the zoom factor to apply.
+     * @param screenX the screen x coordinates of the fixed point, usually the mouse.
+     * @param screenY the screen y coordinates of the fixed point, usually the mouse.
+     */
+    public void zoom(double factor, double screenX, double screenY) {
+        double newZoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom * factor));
+        // Snap on 1 to get back the sprites after zooming in and out
+        if (Math.abs(newZoom - 1) < 1e-9) newZoom = 1;
+        if (newZoom == zoom) return;
+        double worldX = toWorldX(screenX);
+        double worldY = toWorldY(screenY);
+        zoom = newZoom;
+        offsetX = Math.round(screenX - worldX * zoom);
+        offsetY = Math.round(screenY - worldY * zoom);
+        version++;
+    }
+
+    /**
+     * Go back to the identity transform.
+     */
+    public void reset() {
+        zoom = 1;
+        offsetX = 0;
+        offsetY = 0;
+        version++;
+    }
+
+    /**
+     * Convert a screen point to the world.
+     * @param screenX the screen x coordinates.
+     * @param screenY the screen y coordinates.
+     * @return a new Point in the world coordinates.
+     */
+    public Point toWorld(double screenX, double screenY) {
+        return new Point(toWorldX(screenX), toWorldY(screenY));
+    }
+
+    /**
+     * Convert a screen rectangle to the world.
+     * @param rect a rectangle in the screen coordinates.
+     * @return a new Rectangle2D in the world coordinates.
+     */
+    public Rectangle2D toWorld(Rectangle2D rect) {
+        return new Rectangle2D.Double(toWorldX(rect.getX()), toWorldY(rect.getY()),
+                rect.getWidth() / zoom, rect.getHeight() / zoom);
+    }
+
+    /**
+     * Convert a world rectangle to the screen.
+     * @param rect a rectangle in the world coordinates.
+     * @return a new Rectangle2D in the screen coordinates.
+     */
+    public Rectangle2D toScreen(Rectangle2D rect) {
+        return new Rectangle2D.Double(rect.getX() * zoom + offsetX, rect.getY() * zoom + offsetY,
+                rect.getWidth() * zoom, rect.getHeight() * zoom);
+    }
+
+    /**
+     * Convert a world damage rectangle to the screen, grown by one world unit
+     * because the shapes are drawn with their truncated integer coordinates.
+     * @param rect a damage rectangle in the world coordinates.
+     * @return a new Rectangle2D in the screen coordinates.
+     */
+    public Rectangle2D toScreenDamage(Rectangle2D rect) {
+        return new Rectangle2D.Double((rect.getX() - 1) * zoom + offsetX, (rect.getY() - 1) * zoom + offsetY,
+                (rect.getWidth() + 2) * zoom, (rect.getHeight() + 2) * zoom);
+    }
+
+    /**
+     * Check if a world bounding box is too small on the screen to draw its details.
+     * @param box a bounding box in the world coordinates.
+     * @return true if its largest side is under LOD_PIXELS pixels on the screen.
+     */
+    public boolean isFarAway(Rectangle2D box) {
+        return Math.max(box.getWidth(), box.getHeight()) * zoom < LOD_PIXELS;
+    }
+
+    /**
+     * Convert a screen x coordinates to the world.
+     */
+    private double toWorldX(double screenX) {
+        return (screenX - offsetX) / zoom;
+    }
+
+    /**
+     * Convert a screen y coordinates to the world.
+     */
+    private double toWorldY(double screenY) {
+        return (screenY - offsetY) / zoom;
+    }
+
+
+    // ***** EXTRA *****
+
+    /**
+     * Return a String with the Camera zoom and offset.
+     * This method toString() is override from Object class.
+     * @return a String with the Camera zoom and offset.
+     */
+    @Override
+    public String toString() {
+        return "Camera{zoom=" + zoom + ", offset=(" + offsetX + ", " + offsetY + ")}";
+    }
+
+}
@@ -0,0 +1,315 @@
+package render;
+
+import shapes.Group;
+import shapes.Shape;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * LayeredCompositor class.
+ * Composes a frame of the board from three layers, from back to front :
+ * 1. the background layer : the background color and the shape to fill,
+ * 2. the resting layer : all the Tangram pieces but the active one,
+ * 3. the active layer : the piece being dragged, blitted from its sprite.
+ * The first two layers are cached in off-screen images of the size of the View
+ * and invalidated independently : the background layer when the shape to fill
+ * or the background color changes, the resting layer only in the damaged areas.
+ * During a drag the moves of the active piece invalidate nothing, so a frame
+ * is the copy of the cached layers plus the active sprite.
+ * The board is drawn through a Camera : a zoom or a pan invalidates both layers, and only the
+ * pieces visible on the screen are asked to the spatial index, so the cost of a frame follows
+ * the number of visible pieces and not the size of the board.
+ * The pieces are blitted from their sprites at zoom 1, filled as shapes at the other zooms,
+ * and filled as bounding boxes when they are far away (a few pixels on the screen).
+ * The layers are VolatileImage objects when there is a screen,
+ * fully rendered again when their content is lost.
+ */
+
+public class LayeredCompositor {
+
+    // ***** NESTED CLASS *****
+
+    /**
+     * An off-screen layer with its invalid area.
+     */
+    private static final class Layer {
+        private final boolean transparent;
+        private VolatileImage volatileImage;
+        private BufferedImage bufferedImage;
+        private int width;
+        private int height;
+        private Rectangle dirty;
+        private boolean dirtyAll;
+
+        private Layer(boolean transparent) {
+            this.transparent = transparent;
+            this.dirtyAll = true;
+        }
+
+        private Image image() {
+            return volatileImage != null ? volatileImage : bufferedImage;
+        }
+
+        private void invalidate(Rectangle area) {
+            if (dirtyAll) return;
+            dirty = dirty == null ? area : dirty.union(area);
+        }
+
+        private void invalidateAll() {
+            dirtyAll = true;
+            dirty = null;
+        }
+
+        /**
+         * Check the image before drawing on it : create it if the size or the screen changed,
+         * and invalidate it if its content was lost.
+         */
+        private void validate(GraphicsConfiguration gc, int width, int height) {
+            if (image() == null || this.width != width || this.height != height) {
+                create(gc, width, height);
+            } else if (volatileImage != null) {
+                int status = volatileImage.validate(gc);
+                if (status == VolatileImage.IMAGE_INCOMPATIBLE) create(gc, width, height);
+                else if (status == VolatileImage.IMAGE_RESTORED) invalidateAll();
+            }
+        }
+
+        private void create(GraphicsConfiguration gc, int width, int height) {
+            flush();
+            this.width = width;
+            this.height = height;
+            int transparency = transparent ? Transparency.TRANSLUCENT : Transparency.OPAQUE;
+            if (!GraphicsEnvironment.isHeadless() && gc != null) {
+                try {
+                    volatileImage = gc.createCompatibleVolatileImage(width, height, transparency);
+                } catch (RuntimeException e) {
+                    volatileImage = null;
+                }
+            }
+            if (volatileImage == null) {
+                bufferedImage = new BufferedImage(width, height,
+                        transparent ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            }
+            invalidateAll();
+        }
+
+        private boolean contentsLost() {
+            return volatileImage != null && volatileImage.contentsLost();
+        }
+
+        private void flush() {
+            if (volatileImage != null) volatileImage.flush();
+            if (bufferedImage != null) bufferedImage.flush();
+            volatileImage = null;
+            bufferedImage = null;
+        }
+    }
+
+
+    // ***** CONSTANTS *****
+    private static final int DAMAGE_MARGIN = 2;
+
+    // ***** FIELDS *****
+    private final SpriteCache spriteCache;
+    private final Camera camera;
+    private final Layer background;
+    private final Layer resting;
+    private Color backgroundColor;
+    private Shape shapeToFill;
+    private Group activePiece;
+    private long cameraVersion;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct a LayeredCompositor.
+     * @param spriteCache the SpriteCache drawing the pieces.
+     * @param camera the Camera of the View.
+     */
+    public LayeredCompositor(SpriteCache spriteCache, Camera camera) {
+        this.spriteCache = spriteCache;
+        this.camera = camera;
+        this.background = new Layer(false);
+        this.resting = new Layer(true);
+        this.cameraVersion = camera.getVersion();
+    }
+
+
+    // ***** GETTERS *****
+
+    /**
+     * Get the piece of the active layer.
+     * @return the Group being dragged, or null.
+     */
+    public Group getActivePiece() { return activePiece; }
+
+    /**
+     * Move a piece to the active layer (at the start of a drag),
+     * or back to the resting layer with null (at the end of the drag).
+     * The area of the piece is invalidated in the resting layer.
+     * Must be called on the Swing thread.
+     * @param piece the Group being dragged, or null.
+     */
+    public void setActivePiece(Group piece) {
+        if (piece == activePiece) return;
+        if (activePiece != null) invalidateResting(activePiece.getBoundingBox());
+        if (piece != null) invalidateResting(piece.getBoundingBox());
+        activePiece = piece;
+    }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Invalidate all the layers, e.g. when the shape to fill changed.
+     * Must be called on the Swing thread.
+     */
+    public void invalidate() {
+        background.invalidateAll();
+        resting.invalidateAll();
+    }
+
+    /**
+     * Invalidate an area of the resting layer, where a resting piece changed.
+     * Must be called on the Swing thread.
+     * @param area the damage rectangle in the world coordinates, or null for the whole layer.
+     */
+    public void invalidateResting(Rectangle2D area) {
+        if (area == null) {
+            resting.invalidateAll();
+            return;
+        }
+        Rectangle bounds = camera.toScreenDamage(area).getBounds();
+        bounds.grow(DAMAGE_MARGIN, DAMAGE_MARGIN);
+        resting.invalidate(bounds);
+    }
+
+    /**
+     * Paint the layers on a Graphics2D, rendering again their invalid areas first.
+     * The pieces are asked to the spatial index in the world coordinates, the front piece first.
+     * Must be called on the Swing thread.
+     * @param g2D the Graphics2D of the View, clipped to the area to paint.
+     * @param width the width of the View.
+     * @param height the height of the View.
+     * @param backgroundColor the background color.
+     * @param shapeToFill the shape to fill.
+     * @param piecesIn the query of the pieces intersecting a rectangle.
+     */
+    public void paint(Graphics2D g2D, int width, int height, Color backgroundColor, Shape shapeToFill,
+                      Function<Rectangle2D, List<Group>> piecesIn) {
+        if (width <= 0 || height <= 0) return;
+        if (!backgroundColor.equals(this.backgroundColor) || shapeToFill != this.shapeToFill) {
+            this.backgroundColor = backgroundColor;
+            this.shapeToFill = shapeToFill;
+            background.invalidateAll();
+        }
+        if (camera.getVersion() != cameraVersion) {
+            cameraVersion = camera.getVersion();
+            invalidate();
+        }
+        GraphicsConfiguration gc = g2D.getDeviceConfiguration();
+        background.validate(gc, width, height);
+        resting.validate(gc, width, height);
+        if (background.dirtyAll) renderBackground();
+        if (resting.dirtyAll || resting.dirty != null) renderResting(piecesIn);
+
+        g2D.drawImage(background.image(), 0, 0, null);
+        g2D.drawImage(resting.image(), 0, 0, null);
+        if (background.contentsLost() || resting.contentsLost()) {
+            // Lost during the composition : draw this frame directly, the layers are restored next time
+            background.invalidateAll();
+            resting.invalidateAll();
+            paintDirectly(g2D, width, height, piecesIn);
+            return;
+        }
+        if (activePiece != null) {
+            AffineTransform transform = g2D.getTransform();
+            g2D.transform(camera.getTransform());
+            drawPiece(g2D, activePiece);
+            g2D.setTransform(transform);
+        }
+    }
+
+    /**
+     * Release the images of the layers.
+     */
+    public void flush() {
+        background.flush();
+        resting.flush();
+    }
+
+    /**
+     * Render the background layer.
+     */
+    private void renderBackground() {
+        Graphics2D g2D = (Graphics2D) background.image().getGraphics();
+        g2D.setColor(backgroundColor);
+        g2D.fillRect(0, 0, background.width, background.height);
+        g2D.transform(camera.getTransform());
+        shapeToFill.g2DFill(g2D);
+        g2D.dispose();
+        background.dirtyAll = false;
+    }
+
+    /**
+     * Render the invalid area of the resting layer, with the pieces intersecting it
+     * except the active piece, from the back to the front.
+     */
+    private void renderResting(Function<Rectangle2D, List<Group>> piecesIn) {
+        Rectangle area = resting.dirtyAll ? new Rectangle(0, 0, resting.width, resting.height) : resting.dirty;
+        Graphics2D g2D = (Graphics2D) resting.image().getGraphics();
+        g2D.setClip(area);
+        g2D.setComposite(AlphaComposite.Clear);
+        g2D.fillRect(area.x, area.y, area.width, area.height);
+        g2D.setComposite(AlphaComposite.SrcOver);
+        g2D.transform(camera.getTransform());
+        List<Group> pieces = piecesIn.apply(camera.toWorld(area));
+        for (int i = pieces.size() - 1; i >= 0; i--) {
+            if (pieces.get(i) != activePiece) drawPiece(g2D, pieces.get(i));
+        }
+        g2D.dispose();
+        resting.dirtyAll = false;
+        resting.dirty = null;
+    }
+
+    /**
+     * Draw a frame without the layers.
+     */
+    private void paintDirectly(Graphics2D g2D, int width, int height, Function<Rectangle2D, List<Group>> piecesIn) {
+        g2D.setColor(backgroundColor);
+        g2D.fillRect(0, 0, width, height);
+        AffineTransform transform = g2D.getTransform();
+        g2D.transform(camera.getTransform());
+        shapeToFill.g2DFill(g2D);
+        List<Group> pieces = piecesIn.apply(camera.toWorld(new Rectangle(0, 0, width, height)));
+        for (int i = pieces.size() - 1; i >= 0; i--) drawPiece(g2D, pieces.get(i));
+        g2D.setTransform(transform);
+    }
+
+    /**
+     * Draw a piece on a Graphics2D transformed by the Camera :
+     * its bounding box if it is far away, its sprite at zoom 1, else its shapes.
+     */
+    private void drawPiece(Graphics2D g2D, Group piece) {
+        Rectangle2D box = piece.getBoundingBox();
+        if (camera.isFarAway(box)) {
+            g2D.setColor(piece.getColor());
+            g2D.fill(box);
+        } else if (camera.isUnscaled()) {
+            spriteCache.draw(g2D, piece);
+        } else {
+            piece.g2DFill(g2D);
+        }
+    }
+
+}
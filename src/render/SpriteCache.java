@@ -0,0 +1,331 @@
+package render;
+
+import shapes.Circle;
+import shapes.Group;
+import shapes.Polygon;
+import shapes.Shape;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * SpriteCache class.
+ * Pre-renders the Tangram pieces in off-screen images and blits them at the piece position.
+ * The shapes are drawn with integer coordinates, so a piece keeps its appearance
+ * when it moves by whole pixels : the sprite key is the colors and the integer coordinates
+ * relative to the sprite corner. A piece turning by 45 degrees steps only needs
+ * eight sprites (a few more while it is not snapped to the grid).
+ * The rasterizer of Java2D is not exactly invariant by translation, so a blitted
+ * slanted edge can differ by one pixel from the same edge drawn in place.
+ * The sprites are VolatileImage objects (in video memory when possible), rendered again
+ * when their content is lost, or BufferedImage objects when there is no screen.
+ * The least recently used sprites are evicted above a memory capacity.
+ * Groups with other shapes than a Polygon and a Circle are drawn directly.
+ */
+
+public class SpriteCache {
+
+    // ***** NESTED CLASS *****
+
+    /**
+     * The appearance of a piece : colors and integer coordinates relative to the sprite corner,
+     * the first length values of data.
+     * The keys of the map are never modified, the lookup key is a reused scratch key.
+     */
+    private static final class SpriteKey {
+        private int[] data;
+        private int length;
+        private int hash;
+
+        private SpriteKey(int[] data, int length) {
+            this.data = data;
+            setLength(length);
+        }
+
+        /**
+         * Set the number of values and hash them, once they are written in data.
+         */
+        private void setLength(int length) {
+            this.length = length;
+            int h = 1;
+            for (int i = 0; i < length; i++) h = 31 * h + data[i];
+            this.hash = h;
+        }
+
+        /**
+         * Copy the key to store it in the map.
+         */
+        private SpriteKey copy() {
+            return new SpriteKey(Arrays.copyOf(data, length), length);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SpriteKey)) return false;
+            SpriteKey other = (SpriteKey) o;
+            return Arrays.equals(data, 0, length, other.data, 0, other.length);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * An off-screen image of a piece.
+     */
+    private static final class Sprite {
+        private final int width;
+        private final int height;
+        private VolatileImage volatileImage;
+        private BufferedImage bufferedImage;
+
+        private Sprite(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        private long bytes() {
+            return (long) width * height * 4;
+        }
+
+        private void flush() {
+            if (volatileImage != null) volatileImage.flush();
+            if (bufferedImage != null) bufferedImage.flush();
+        }
+    }
+
+
+    // ***** CONSTANTS *****
+    public static final long DEFAULT_CAPACITY_BYTES = 16L << 20;
+
+    // ***** FIELDS *****
+    private final long capacityBytes;
+    private final LinkedHashMap<SpriteKey, Sprite> sprites;
+    private long memoryBytes;
+    private long hits;
+    private long misses;
+    private final int[] bounds;
+    private final SpriteKey scratchKey;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct a SpriteCache with the default memory capacity.
+     */
+    public SpriteCache() {
+        this(DEFAULT_CAPACITY_BYTES);
+    }
+
+    /**
+     * Construct a SpriteCache.
+     * @param capacityBytes the memory capacity of the sprites, in bytes (4 bytes per pixel).
+     */
+    public SpriteCache(long capacityBytes) {
+        this.capacityBytes = capacityBytes;
+        this.sprites = new LinkedHashMap<>(64, 0.75f, true);
+        this.bounds = new int[4];
+        this.scratchKey = new SpriteKey(new int[32], 0);
+    }
+
+
+    // ***** GETTERS *****
+
+    /**
+     * Get the number of cached sprites.
+     * @return the number of sprites.
+     */
+    public int size() { return sprites.size(); }
+
+    /**
+     * Get the memory used by the sprites.
+     * @return the number of bytes.
+     */
+    public long getMemoryBytes() { return memoryBytes; }
+
+    /**
+     * Get the number of pieces drawn from a cached sprite.
+     * @return the number of hits.
+     */
+    public long getHits() { return hits; }
+
+    /**
+     * Get the number of sprites rendered because they were not cached.
+     * @return the number of misses.
+     */
+    public long getMisses() { return misses; }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Draw a piece from its sprite, which is rendered if needed.
+     * Must be called on the Swing thread.
+     * @param g2D the Graphics2D to draw on.
+     * @param piece the Group of the piece.
+     */
+    public void draw(Graphics2D g2D, Group piece) {
+        SpriteKey key = keyOf(piece);
+        if (key == null) {
+            piece.g2DFill(g2D);
+            return;
+        }
+        int x = bounds[0], y = bounds[1];
+        Sprite sprite = sprites.get(key);
+        if (sprite == null) {
+            misses++;
+            sprite = new Sprite(bounds[2] - x + 1, bounds[3] - y + 1);
+            create(sprite, g2D.getDeviceConfiguration(), piece, x, y);
+            sprites.put(key.copy(), sprite);
+            memoryBytes += sprite.bytes();
+            evict();
+        } else {
+            hits++;
+        }
+
+        if (sprite.volatileImage != null) {
+            GraphicsConfiguration gc = g2D.getDeviceConfiguration();
+            int status = sprite.volatileImage.validate(gc);
+            if (status == VolatileImage.IMAGE_INCOMPATIBLE) create(sprite, gc, piece, x, y);
+            else if (status == VolatileImage.IMAGE_RESTORED) render(sprite.volatileImage, piece, x, y);
+            g2D.drawImage(sprite.volatileImage, x, y, null);
+            // Lost during the blit : draw the piece directly, the sprite is restored next time
+            if (sprite.volatileImage.contentsLost()) piece.g2DFill(g2D);
+        } else {
+            g2D.drawImage(sprite.bufferedImage, x, y, null);
+        }
+    }
+
+    /**
+     * Remove all the sprites and release their images.
+     */
+    public void clear() {
+        for (Sprite sprite : sprites.values()) sprite.flush();
+        sprites.clear();
+        memoryBytes = 0;
+    }
+
+    /**
+     * Evict the least recently used sprites above the memory capacity.
+     */
+    private void evict() {
+        Iterator<Sprite> iterator = sprites.values().iterator();
+        while (memoryBytes > capacityBytes && sprites.size() > 1 && iterator.hasNext()) {
+            Sprite eldest = iterator.next();
+            iterator.remove();
+            memoryBytes -= eldest.bytes();
+            eldest.flush();
+        }
+    }
+
+    /**
+     * Create the image of a sprite : a VolatileImage when there is a screen, else a BufferedImage.
+     */
+    private void create(Sprite sprite, GraphicsConfiguration gc, Group piece, int x, int y) {
+        sprite.flush();
+        sprite.volatileImage = null;
+        sprite.bufferedImage = null;
+        if (!GraphicsEnvironment.isHeadless() && gc != null) {
+            try {
+                sprite.volatileImage = gc.createCompatibleVolatileImage(sprite.width, sprite.height, Transparency.BITMASK);
+            } catch (RuntimeException e) {
+                sprite.volatileImage = null;
+            }
+        }
+        if (sprite.volatileImage != null) {
+            render(sprite.volatileImage, piece, x, y);
+        } else {
+            sprite.bufferedImage = new BufferedImage(sprite.width, sprite.height, BufferedImage.TYPE_INT_ARGB);
+            render(sprite.bufferedImage, piece, x, y);
+        }
+    }
+
+    /**
+     * Draw a piece on a transparent image whose corner is at (x, y).
+     */
+    private static void render(Image image, Group piece, int x, int y) {
+        Graphics2D g2D = (Graphics2D) image.getGraphics();
+        g2D.setComposite(AlphaComposite.Clear);
+        g2D.fillRect(0, 0, image.getWidth(null), image.getHeight(null));
+        g2D.setComposite(AlphaComposite.SrcOver);
+        g2D.translate(-x, -y);
+        piece.g2DFill(g2D);
+        g2D.dispose();
+    }
+
+    /**
+     * Build the key of a piece and put its integer bounds in the bounds array
+     * (min x, min y, max x, max y), as drawn by Polygon.g2DFill() and Circle.g2DFill().
+     * The key is written in the scratch key, so a draw allocates nothing when its sprite is cached.
+     * @return the scratch key, valid until the next call, or null if the Group has another kind of Shape.
+     */
+    private SpriteKey keyOf(Group piece) {
+        int size = 0;
+        for (Shape shape : piece.getShapeGroup()) {
+            if (shape instanceof Polygon) size += 2 + 2 * ((Polygon) shape).getVertexCount();
+            else if (shape instanceof Circle) size += 4;
+            else return null;
+        }
+        if (scratchKey.data.length < size) scratchKey.data = new int[Math.max(size, 2 * scratchKey.data.length)];
+        int[] data = scratchKey.data;
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        int k = 0;
+        for (Shape shape : piece.getShapeGroup()) {
+            data[k++] = shape.getColor().getRGB();
+            if (shape instanceof Polygon) {
+                Polygon polygon = (Polygon) shape;
+                data[k++] = polygon.getVertexCount();
+                for (int i = 0; i < polygon.getVertexCount(); i++) {
+                    int vx = (int) polygon.getVertexX(i);
+                    int vy = (int) polygon.getVertexY(i);
+                    data[k++] = vx;
+                    data[k++] = vy;
+                    minX = Math.min(minX, vx);
+                    minY = Math.min(minY, vy);
+                    maxX = Math.max(maxX, vx);
+                    maxY = Math.max(maxY, vy);
+                }
+            } else {
+                Circle circle = (Circle) shape;
+                int ox = (int) (circle.getCenter().getX() - circle.getRadius());
+                int oy = (int) (circle.getCenter().getY() - circle.getRadius());
+                int diameter = (int) circle.getRadius() * 2;
+                data[k++] = ox;
+                data[k++] = oy;
+                data[k++] = diameter;
+                minX = Math.min(minX, ox);
+                minY = Math.min(minY, oy);
+                maxX = Math.max(maxX, ox + diameter);
+                maxY = Math.max(maxY, oy + diameter);
+            }
+        }
+        // Coordinates relative to the sprite corner
+        k = 0;
+        for (Shape shape : piece.getShapeGroup()) {
+            k++;
+            int count = shape instanceof Polygon ? data[k++] : 1;
+            for (int i = 0; i < count; i++) {
+                data[k++] -= minX;
+                data[k++] -= minY;
+            }
+            if (shape instanceof Circle) k++;
+        }
+        bounds[0] = minX;
+        bounds[1] = minY;
+        bounds[2] = maxX;
+        bounds[3] = maxY;
+        scratchKey.setLength(size);
+        return scratchKey;
+    }
+
+}
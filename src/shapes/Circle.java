@@ -4,6 +4,7 @@ import geometry.*;
 import geometry.Point;
 
 import java.awt.*;
+import java.awt.geom.Rectangle2D;
 
 
 /**
@@ -53,6 +54,7 @@ public class Circle extends Shape {
     @Override
     public void setCenter(Point center) {
         this.center = center;
+        modified();
     }
 
     /**
@@ -69,6 +71,18 @@ public class Circle extends Shape {
      */
     public void setRadius(double radius) {
         this.radius = radius;
+        modified();
+    }
+
+    /**
+     * Get the Circle axis-aligned bounding box.
+     * @return a new Rectangle2D containing the Circle.
+     */
+    @Override
+    public Rectangle2D getBoundingBox() {
+        return new Rectangle2D.Double(
+                center.getX() - radius, center.getY() - radius,
+                2 * radius, 2 * radius);
     }
 
 
@@ -82,6 +96,7 @@ public class Circle extends Shape {
     @Override
     public void translate(Vector vector) {
         getCenter().translate(vector);
+        modified();
     }
 
     /**
@@ -92,6 +107,7 @@ public class Circle extends Shape {
     @Override
     public void rotate(Point center, Angle angle) {
         getCenter().rotate(angle, center);
+        modified();
     }
 
     /**
@@ -103,6 +119,7 @@ public class Circle extends Shape {
     public void scale(Point refPoint, Double factor) {
         getCenter().scale(factor, refPoint);
         radius *= factor;
+        modified();
     }
 
     /**
@@ -4,6 +4,7 @@ import geometry.*;
 import geometry.Point;
 
 import java.awt.*;
+import java.awt.geom.Rectangle2D;
 import java.util.List;
 
 /**
@@ -89,6 +90,33 @@ public class Group extends Shape {
         translate(new Vector(getCenter(),center));
     }
 
+    /**
+     * Get the Group version stamp.
+     * It also changes when a Shape inside the Group is modified directly.
+     * @return the sum of the Group and of each Shape version stamps.
+     */
+    @Override
+    public long getVersion() {
+        long version = super.getVersion();
+        for (Shape s : shapeGroup) version += s.getVersion();
+        return version;
+    }
+
+    /**
+     * Get the Group axis-aligned bounding box
+     * as the union of each Shape bounding box.
+     * @return a new Rectangle2D containing the Group.
+     */
+    @Override
+    public Rectangle2D getBoundingBox() {
+        Rectangle2D box = null;
+        for (Shape s : shapeGroup) {
+            if (box == null) box = s.getBoundingBox();
+            else box.add(s.getBoundingBox());
+        }
+        return box != null ? box : new Rectangle2D.Double(groupCenter.getX(), groupCenter.getY(), 0, 0);
+    }
+
     /**
      * Get the List of Shape inside the Group.
      * @return the List of Shape inside the Group.
@@ -124,6 +152,7 @@ public class Group extends Shape {
     public void translate(Vector vector) {
         for (Shape s : shapeGroup) s.translate(vector);
         groupCenter.translate(vector);
+        modified();
     }
 
     /**
@@ -135,6 +164,7 @@ public class Group extends Shape {
     public void rotate(Point center, Angle angle) {
         for (Shape s : shapeGroup) s.rotate(center, angle);
         groupCenter.rotate(angle, center);
+        modified();
     }
 
     /**
@@ -146,6 +176,7 @@ public class Group extends Shape {
     public void scale(Point refPoint, Double factor) {
         for (Shape s : shapeGroup) s.scale(refPoint, factor);
         groupCenter.scale(factor, refPoint);
+        modified();
     }
 
 
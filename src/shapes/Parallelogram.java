@@ -4,8 +4,6 @@ import geometry.*;
 import geometry.Point;
 
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.Arrays;
 
 /**
  * ALL RIGHTS RESERVED :
@@ -64,9 +62,9 @@ public class Parallelogram extends Polygon {
      * @param b a Point representing the second corner of the Parallelogram.
      * @param shift a double value representing the Parallelogram shift.
      * @param height a double value representing the Parallelogram height.
-     * @return Return an Array of Point representing each Parallelogram corners.
+     * @return Return a VertexBuffer representing each Parallelogram corners.
      */
-    private static ArrayList<Point> computePoints(Point a, Point b, double shift, double height) {
+    private static VertexBuffer computePoints(Point a, Point b, double shift, double height) {
 
         //                    d ------- c
         //                 .         .  |
@@ -78,7 +76,7 @@ public class Parallelogram extends Polygon {
         c.rotate(Angle.inDegrees(90).plus(getAngleBAX(a, b)), computeT(a, b, shift));
         Point d = new Point(c);
         d.translate(new Vector(a, b).times(-1));
-        return new ArrayList<>(Arrays.asList(a, b, c, d));
+        return VertexBuffer.of(a, b, c, d);
     }
 
 
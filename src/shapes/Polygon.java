@@ -4,6 +4,7 @@ import geometry.*;
 import geometry.Point;
 
 import java.awt.*;
+import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 
 /**
@@ -11,12 +12,31 @@ import java.util.ArrayList;
  * UNIVERSITY OF FRIBOURG - SWISS
 
  * Polygon class to create, transform, and display polygons.
+ * The center, the area and the bounding box are computed lazily
+ * and reused until the Shape version changes.
  */
 
 public class Polygon extends Shape {
 
     // ***** FIELDS *****
-    private ArrayList<Point> vertices;
+    private VertexBuffer vertices;
+    private int[] xCoords;
+    private int[] yCoords;
+
+    // Derived geometry cache, valid for cacheVersion
+    private long cacheVersion = -1;
+    private double centerX;
+    private double centerY;
+    private double minX;
+    private double minY;
+    private double maxX;
+    private double maxY;
+    private double area;
+
+    // Separating axis theorem data, valid for convexBodyVersion
+    private long convexBodyVersion = -1;
+    private ConvexBody convexBody;
+    private boolean convex;
 
 
     // ***** CONSTRUCTOR *****
@@ -28,8 +48,19 @@ public class Polygon extends Shape {
      * @param vertices a Point ArrayList representing each vertex.
      */
     public Polygon(Color color, ArrayList<Point> vertices) {
+        this(color, new VertexBuffer(vertices));
+    }
+
+    /**
+     * Construct a new Polygon from a Color and
+     * a VertexBuffer representing each vertex.
+     * The VertexBuffer is owned by the Polygon and must not be shared.
+     * @param color a Color from java.awt.
+     * @param vertices a VertexBuffer representing each vertex.
+     */
+    protected Polygon(Color color, VertexBuffer vertices) {
         super(color);
-        this.vertices = new ArrayList<>(vertices);
+        this.vertices = vertices;
     }
 
 
@@ -37,19 +68,24 @@ public class Polygon extends Shape {
 
     /**
      * Return the Point center as the mean of Polygon coordinates.
+     * The mean is cached, but a new Point is returned
+     * because callers may keep and move it (e.g. a Circle center).
      * @return the Point center as the mean of Polygon coordinates.
      */
     @Override
     public Point getCenter() {
-        double sumOfX = 0;
-        double sumOfY = 0;
-        for (Point p : vertices) {
-            sumOfX += p.getX();
-            sumOfY += p.getY();
-        }
-        return new Point(
-                sumOfX / vertices.size(),
-                sumOfY / vertices.size());
+        updateCache();
+        return new Point(centerX, centerY);
+    }
+
+    /**
+     * Get the Polygon axis-aligned bounding box.
+     * @return a new Rectangle2D containing the Polygon.
+     */
+    @Override
+    public Rectangle2D getBoundingBox() {
+        updateCache();
+        return new Rectangle2D.Double(minX, minY, maxX - minX, maxY - minY);
     }
 
     /**
@@ -63,10 +99,12 @@ public class Polygon extends Shape {
 
     /**
      * Return Polygon ArrayList vertices.
+     * The Points are copies of the packed coordinates :
+     * use the transformation methods or setVertices() to modify the Polygon.
      * @return Return Polygon ArrayList vertices Point.
      */
     public ArrayList<Point> getVertices() {
-        return vertices;
+        return vertices.toPoints();
     }
 
     /**
@@ -74,11 +112,39 @@ public class Polygon extends Shape {
      * @param vertices a Point ArrayList.
      */
     public void setVertices(ArrayList<Point> vertices) {
-        this.vertices = new ArrayList<>(vertices);
+        this.vertices = new VertexBuffer(vertices);
+        modified();
+    }
+
+    /**
+     * Get the number of Polygon vertices.
+     * @return the number of Polygon vertices.
+     */
+    public int getVertexCount() {
+        return vertices.size();
+    }
+
+    /**
+     * Get the x coordinates of a Polygon vertex.
+     * @param i the vertex index.
+     * @return the x coordinates of the vertex.
+     */
+    public double getVertexX(int i) {
+        return vertices.getX(i);
+    }
+
+    /**
+     * Get the y coordinates of a Polygon vertex.
+     * @param i the vertex index.
+     * @return the y coordinates of the vertex.
+     */
+    public double getVertexY(int i) {
+        return vertices.getY(i);
     }
 
     /**
      * Get an ArrayList with each Polygon Segments.
+     * The Segments are mutable, so they are new copies owned by the caller.
      * @return an ArrayList with each Polygon Segments.
      */
     public ArrayList<Segment> getSegments() {
@@ -87,8 +153,8 @@ public class Polygon extends Shape {
         // For easier understanding : vertices[i] = a and vertices[i+1] = b.
         // If A = last vertice -> B = first vertice;
         for (int i = 0; i < vertices.size(); i++) {
-            Point a = vertices.get(i).copy();
-            Point b = i == vertices.size() - 1 ? vertices.get(0).copy() : vertices.get(i + 1).copy();
+            Point a = vertices.getPoint(i);
+            Point b = i == vertices.size() - 1 ? vertices.getPoint(0) : vertices.getPoint(i + 1);
             segments.add(new Segment(a, b));
         }
         return segments;
@@ -104,7 +170,8 @@ public class Polygon extends Shape {
      */
     @Override
     public void translate(Vector vector) {
-        for (Point p : vertices) p.translate(vector);
+        vertices.translate(vector.getDx(), vector.getDy());
+        modified();
     }
 
     /**
@@ -114,7 +181,8 @@ public class Polygon extends Shape {
      */
     @Override
     public void rotate(Point center, Angle angle) {
-        for (Point p : vertices) p.rotate(angle, center);
+        vertices.rotate(angle, center.getX(), center.getY());
+        modified();
     }
 
     /**
@@ -124,7 +192,17 @@ public class Polygon extends Shape {
      */
     @Override
     public void scale(Point refPoint, Double factor) {
-        for (Point p : vertices) p.scale(factor, refPoint);
+        vertices.scale(factor, refPoint.getX(), refPoint.getY());
+        modified();
+    }
+
+    /**
+     * Round all the Polygon vertices to the nearest multiple of a grid step.
+     * @param step the grid step.
+     */
+    public void snap(int step) {
+        vertices.snap(step);
+        modified();
     }
 
     /**
@@ -135,13 +213,128 @@ public class Polygon extends Shape {
      */
     @Override
     public boolean contains(Point point) {
-        // Check segments crossing
-        int crosses = 0;
-        Segment horizontalLine = new Segment(point, new Point(1e6, point.getY()));
-        for (Segment s : getSegments()) {
-            if (s.isColliding(horizontalLine)) crosses += 1;
+        return contains(point.getX(), point.getY());
+    }
+
+    /**
+     * Determine if a point is inside a Polygon without allocating.
+     * Points outside the bounding box are rejected first,
+     * then the segment cross algorithm is used.
+     * @param x the x coordinates of the point.
+     * @param y the y coordinates of the point.
+     * @return a Boolean if the point is inside or not.
+     */
+    @Override
+    public boolean contains(double x, double y) {
+        updateCache();
+        if (x < minX || x > maxX || y < minY || y > maxY) return false;
+        return vertices.contains(x, y);
+    }
+
+
+    /**
+     * Get the Polygon area (shoelace formula).
+     * @return the Polygon area.
+     */
+    public double getArea() {
+        updateCache();
+        return area;
+    }
+
+    /**
+     * Compute the area of the intersection of the current Polygon and another one,
+     * by clipping one of them with the other one (Sutherland-Hodgman).
+     * Neither Polygon is modified.
+     * @param other another Polygon.
+     * @return the area covered by both Polygons.
+     * @throws IllegalArgumentException if neither Polygon is convex.
+     */
+    public double overlapArea(Polygon other) {
+        Rectangle2D box = getBoundingBox();
+        if (!box.intersects(other.getBoundingBox())) return 0;
+        if (other.isConvex()) return Clipping.intersectionArea(vertices, other.vertices);
+        if (isConvex()) return Clipping.intersectionArea(other.vertices, vertices);
+        throw new IllegalArgumentException("At least one Polygon must be convex");
+    }
+
+    /**
+     * Create the CoverageMask of the Polygon on a board.
+     * @param board a CoverageMask giving the board layout.
+     * @return a new CoverageMask with the bits covered by the Polygon.
+     */
+    public CoverageMask rasterize(CoverageMask board) {
+        return board.rasterize(vertices);
+    }
+
+    /**
+     * Check if the Polygon is convex.
+     * @return true if the Polygon is convex.
+     */
+    public boolean isConvex() {
+        updateConvexBody();
+        return convex;
+    }
+
+    /**
+     * Get the ConvexBody of the Polygon for separating axis collision tests.
+     * The ConvexBody is an immutable snapshot, rebuilt when the Polygon changes.
+     * @return the ConvexBody of the Polygon, or null if the Polygon is not convex.
+     */
+    public ConvexBody getConvexBody() {
+        updateConvexBody();
+        return convexBody;
+    }
+
+    /**
+     * Add all the Polygon segments to a SweepAndPrune, scaled around the Polygon center.
+     * The Polygon is not modified.
+     * @param sweepAndPrune the SweepAndPrune to fill.
+     * @param owner the owner of the segments inside the SweepAndPrune.
+     * @param factor the scale factor, e.g. a bit under 1 so that touching Polygons do not cross.
+     */
+    public void addSegmentsTo(SweepAndPrune sweepAndPrune, int owner, double factor) {
+        Point center = getCenter();
+        sweepAndPrune.addOutline(vertices, owner, factor, center.getX(), center.getY());
+    }
+
+    /**
+     * Recompute the center, the bounding box and the area
+     * if the Polygon was modified since the last computation.
+     */
+    private void updateCache() {
+        if (cacheVersion == getVersion()) return;
+        int size = vertices.size();
+        double sumOfX = 0;
+        double sumOfY = 0;
+        minX = Double.POSITIVE_INFINITY;
+        minY = Double.POSITIVE_INFINITY;
+        maxX = Double.NEGATIVE_INFINITY;
+        maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            double x = vertices.getX(i);
+            double y = vertices.getY(i);
+            sumOfX += x;
+            sumOfY += y;
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
         }
-        return crosses % 2 != 0;
+        centerX = sumOfX / size;
+        centerY = sumOfY / size;
+        area = Clipping.area(vertices);
+        cacheVersion = getVersion();
+    }
+
+
+    /**
+     * Rebuild the ConvexBody if the Polygon was modified since the last computation.
+     */
+    private void updateConvexBody() {
+        if (convexBodyVersion == getVersion()) return;
+        convex = ConvexBody.isConvex(vertices);
+        convexBody = convex ? new ConvexBody(vertices) : null;
+        convexBodyVersion = getVersion();
     }
 
 
@@ -149,16 +342,16 @@ public class Polygon extends Shape {
 
     /**
      * Method for drawing the Polygon with a Graphics2D.
+     * The int coordinates arrays are reused between two drawings.
      * @param g2D a Graphics2D.
      */
     @Override
     public void g2DFill(Graphics2D g2D) {
-        int[] xCoords = new int[vertices.size()];
-        int[] yCoords = new int[vertices.size()];
-        for (int i = 0; i < vertices.size(); i++) {
-            xCoords[i] = (int) vertices.get(i).getX();
-            yCoords[i] = (int) vertices.get(i).getY();
+        if (xCoords == null || xCoords.length != vertices.size()) {
+            xCoords = new int[vertices.size()];
+            yCoords = new int[vertices.size()];
         }
+        vertices.toIntCoords(xCoords, yCoords);
         g2D.setColor(getColor());
         g2D.fillPolygon(xCoords, yCoords, vertices.size());
     }
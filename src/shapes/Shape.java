@@ -4,6 +4,7 @@ import geometry.*;
 import geometry.Point;
 
 import java.awt.*;
+import java.awt.geom.Rectangle2D;
 
 
 /**
@@ -12,12 +13,16 @@ import java.awt.*;
 
  * Shape abstract class that will be used as a parent class
  * of all concrete shapes such as triangles, rectangles, squares, etc.
+ * Each Shape has a version stamp incremented by every transformation,
+ * so derived geometry (center, area, bounding box) can be cached
+ * until the Shape changes.
  */
 
 public abstract class Shape implements Transformable {
 
     // ***** FIELDS *****
     private Color color;
+    private long version;
 
 
     // ***** CONSTRUCTOR *****
@@ -49,6 +54,29 @@ public abstract class Shape implements Transformable {
         this.color = color;
     }
 
+    /**
+     * Get the Shape version stamp.
+     * The version changes each time the Shape geometry is modified.
+     * @return the Shape version stamp.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Increment the Shape version stamp.
+     * Must be called by every method modifying the Shape geometry.
+     */
+    protected void modified() {
+        version++;
+    }
+
+    /**
+     * Get the Shape axis-aligned bounding box.
+     * @return a new Rectangle2D containing the Shape.
+     */
+    public abstract Rectangle2D getBoundingBox();
+
     /**
      * Get the Shape center Point.
      * @return the Shape center Point.
@@ -70,6 +98,17 @@ public abstract class Shape implements Transformable {
      */
     public abstract boolean contains(Point point);
 
+    /**
+     * Return true if a point given by its coordinates is inside the current Shape.
+     * Subclasses can override it to avoid creating a Point.
+     * @param x the x coordinates of the point.
+     * @param y the y coordinates of the point.
+     * @return true if the point is inside the current Shape.
+     */
+    public boolean contains(double x, double y) {
+        return contains(new Point(x, y));
+    }
+
 
     // ***** METHODS *****
 
@@ -4,8 +4,6 @@ import geometry.*;
 import geometry.Point;
 
 import java.awt.Color;
-import java.util.ArrayList;
-import java.util.Arrays;
 
 import static shapes.Parallelogram.getAngleBAX;
 
@@ -56,9 +54,9 @@ public class Triangle extends Polygon {
      * @param b a Point representing the second Triangle corner.
      * @param shift  a double value representing the Triangle shift.
      * @param height a double value representing the Triangle height.
-     * @return Return an Array of Point representing each Triangle corners.
+     * @return Return a VertexBuffer representing each Triangle corners.
      */
-    private static ArrayList<Point> computePoints(Point a, Point b, double shift, double height) {
+    private static VertexBuffer computePoints(Point a, Point b, double shift, double height) {
 
         //                     c
         //                 .   |      .
@@ -68,7 +66,7 @@ public class Triangle extends Polygon {
 
         Point c = new Point(computeS2(a, b, shift, height));
         c.rotate(Angle.inDegrees(90).plus(getAngleBAX(a, b)), computeS(a, b, shift));
-        return new ArrayList<>(Arrays.asList(a, b, c));
+        return VertexBuffer.of(a, b, c);
     }
 
 
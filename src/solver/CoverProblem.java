@@ -0,0 +1,168 @@
+package solver;
+
+import shapes.Polygon;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * CoverProblem class : a target Polygon and a piece set written as an exact cover
+ * problem for DancingLinks. It works for any pieces whose outlines fit a Lattice
+ * (Tangram pieces on the half-square grid, polyomino sets, ...).
+ * There is one primary column per target triangle and one column per piece :
+ * the piece columns are primary when the pieces area equals the target area
+ * (every piece is used), secondary otherwise (pieces are optional).
+ * There is one row per placement of an Orientation inside the target.
+ * The rows of the designated piece of the SymmetryAnalyzer are kept only when they
+ * are canonical, so symmetric covers are not listed (identical pieces still are).
+ */
+
+public class CoverProblem {
+
+    // ***** FIELDS *****
+    private final Lattice lattice;
+    private final PlacementTable table;
+    private final DancingLinks links;
+    private final boolean piecesPrimary;
+    private final List<int[]> rows;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct the CoverProblem of a target, on the biggest lattice unit
+     * where every piece fits.
+     * @param pieces the pieces, the poses use the same indexes.
+     * @param target the silhouette to fill.
+     * @param step the grid step the pieces are snapped to (ViewTangram.STEP).
+     * @throws IllegalArgumentException if a piece does not fit any lattice of the target.
+     */
+    public CoverProblem(List<? extends Polygon> pieces, Polygon target, int step) {
+        Lattice foundLattice = null;
+        PlacementTable foundTable = null;
+        for (int unit : Lattice.candidateUnits(target, step)) {
+            Lattice candidate = new Lattice(target, unit);
+            PlacementTable candidateTable = PlacementTable.of(pieces, candidate, step);
+            if (candidateTable.fitsAll() && candidateTable.getCells() >= candidate.getTargetCells()) {
+                foundLattice = candidate;
+                foundTable = candidateTable;
+                break;
+            }
+        }
+        if (foundLattice == null) throw new IllegalArgumentException("The pieces do not fit a lattice of the target");
+        this.lattice = foundLattice;
+        this.table = foundTable;
+        this.piecesPrimary = table.getCells() == lattice.getTargetCells();
+        this.rows = new ArrayList<>();
+
+        // Target triangles columns, then pieces columns
+        int[] columnOf = new int[lattice.size()];
+        int targetColumns = 0;
+        for (int i = 0; i < lattice.size(); i++) columnOf[i] = lattice.isTarget(i) ? targetColumns++ : -1;
+        int pieceCount = table.getPieceCount();
+        this.links = piecesPrimary
+                ? new DancingLinks(targetColumns + pieceCount, 0)
+                : new DancingLinks(targetColumns, pieceCount);
+
+        SymmetryAnalyzer symmetry = new SymmetryAnalyzer(table, lattice);
+        for (int p = 0; p < pieceCount; p++) {
+            int type = table.getType(p);
+            for (int o = 0; o < table.getOrientationCount(type); o++) {
+                Orientation orientation = table.getOrientation(type, o);
+                for (int row = 0; row + orientation.height <= lattice.getRows(); row++) {
+                    for (int col = 0; col + orientation.width <= lattice.getCols(); col++) {
+                        int anchor = lattice.index(col + orientation.anchorCol, row + orientation.anchorRow, orientation.anchorQ);
+                        if (!symmetry.isCanonical(p, o, anchor)) continue;
+                        int[] columns = new int[orientation.size() + 1];
+                        boolean inside = true;
+                        for (int i = 0; i < orientation.offsets.length && inside; i++) {
+                            columns[i] = columnOf[anchor + orientation.offsets[i]];
+                            inside = columns[i] >= 0;
+                        }
+                        if (!inside) continue;
+                        columns[orientation.size()] = targetColumns + p;
+                        links.addRow(columns);
+                        rows.add(new int[]{p, o, col, row});
+                    }
+                }
+            }
+        }
+    }
+
+
+    // ***** GETTERS *****
+
+    /**
+     * Get the Lattice of the problem.
+     * @return the Lattice.
+     */
+    public Lattice getLattice() { return lattice; }
+
+    /**
+     * Get the DancingLinks of the problem.
+     * @return the DancingLinks.
+     */
+    public DancingLinks getLinks() { return links; }
+
+    /**
+     * Check if every piece must be used.
+     * @return true if the piece columns are primary.
+     */
+    public boolean isPiecesPrimary() { return piecesPrimary; }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Search the first exact cover.
+     * @return the first Solution, or null if there is none.
+     */
+    public Solution solve() {
+        Solution[] found = new Solution[1];
+        links.search((chosen, count) -> {
+            found[0] = toSolution(chosen, count);
+            return false;
+        });
+        return found[0];
+    }
+
+    /**
+     * Count the exact covers.
+     * @return the number of covers.
+     */
+    public long count() {
+        return links.count();
+    }
+
+    /**
+     * Search the exact covers, until the visitor stops.
+     * @param visitor the visitor called for each cover, it can stop the search.
+     * @return the number of covers visited.
+     */
+    public long search(DancingLinks.SolutionVisitor visitor) {
+        return links.search(visitor);
+    }
+
+    /**
+     * Build the Solution of a cover.
+     * @param chosen the indexes of the rows of the cover.
+     * @param count the number of rows.
+     * @return a new Solution, sorted by piece index.
+     */
+    public Solution toSolution(int[] chosen, int count) {
+        Pose[] poses = new Pose[table.getPieceCount()];
+        for (int i = 0; i < count; i++) {
+            int[] placement = rows.get(chosen[i]);
+            poses[placement[0]] = table.toPose(lattice, placement[0], placement[1], placement[2], placement[3]);
+        }
+        List<Pose> list = new ArrayList<>();
+        for (Pose pose : poses) {
+            if (pose != null) list.add(pose);
+        }
+        return new Solution(list);
+    }
+
+}
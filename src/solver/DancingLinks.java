@@ -0,0 +1,230 @@
+package solver;
+
+import java.util.Arrays;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * DancingLinks class : Knuth's Algorithm X with dancing links for exact cover problems.
+ * The nodes are stored in primitive int arrays (left, right, up, down, column, row) :
+ * node 0 is the root, nodes 1 to columns are the column headers,
+ * the other nodes are the 1s of the rows. Primary columns must be covered exactly once,
+ * secondary columns at most once (they are not linked to the root).
+ * The search always branches on the primary column with the fewest rows.
+ */
+
+public final class DancingLinks {
+
+    // ***** NESTED CLASS *****
+
+    /**
+     * Visitor receiving each exact cover found.
+     */
+    public interface SolutionVisitor {
+
+        /**
+         * Called for each exact cover.
+         * @param rows the indexes of the rows of the cover (shared buffer, copy it to keep it).
+         * @param count the number of rows of the cover.
+         * @return true to continue the search, false to stop.
+         */
+        boolean visit(int[] rows, int count);
+    }
+
+
+    // ***** FIELDS *****
+    private final int columns;
+    private int[] left;
+    private int[] right;
+    private int[] up;
+    private int[] down;
+    private int[] column;
+    private int[] row;
+    private final int[] size;
+    private int nodeCount;
+    private int rowCount;
+    private int[] chosen;
+    private long updates;
+    private boolean stopped;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct an empty exact cover problem.
+     * @param primaryColumns the number of columns to cover exactly once (indexes 0 to primaryColumns - 1).
+     * @param secondaryColumns the number of columns to cover at most once (the next indexes).
+     */
+    public DancingLinks(int primaryColumns, int secondaryColumns) {
+        this.columns = primaryColumns + secondaryColumns;
+        int capacity = Math.max(16, (columns + 1) * 4);
+        left = new int[capacity];
+        right = new int[capacity];
+        up = new int[capacity];
+        down = new int[capacity];
+        column = new int[capacity];
+        row = new int[capacity];
+        size = new int[columns + 1];
+        chosen = new int[16];
+        for (int c = 0; c <= columns; c++) {
+            up[c] = c;
+            down[c] = c;
+            column[c] = c;
+            row[c] = -1;
+            if (c <= primaryColumns) {
+                // Root and primary headers in the root list
+                left[c] = c == 0 ? primaryColumns : c - 1;
+                right[c] = c == primaryColumns ? 0 : c + 1;
+            } else {
+                left[c] = c;
+                right[c] = c;
+            }
+        }
+        nodeCount = columns + 1;
+    }
+
+
+    // ***** GETTERS *****
+
+    /**
+     * Get the number of rows.
+     * @return the number of rows.
+     */
+    public int getRowCount() { return rowCount; }
+
+    /**
+     * Get the number of link updates of the last search.
+     * @return the number of updates.
+     */
+    public long getUpdates() { return updates; }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Add a row to the problem.
+     * @param columns the distinct indexes of the columns of the row.
+     * @return the index of the row.
+     */
+    public int addRow(int... columns) {
+        ensureCapacity(nodeCount + columns.length);
+        int first = -1;
+        for (int c : columns) {
+            int header = c + 1;
+            int node = nodeCount++;
+            column[node] = header;
+            row[node] = rowCount;
+            // Vertical list : at the bottom of the column
+            up[node] = up[header];
+            down[node] = header;
+            down[up[header]] = node;
+            up[header] = node;
+            size[header]++;
+            // Horizontal list : at the end of the row
+            if (first < 0) {
+                first = node;
+                left[node] = node;
+                right[node] = node;
+            } else {
+                left[node] = left[first];
+                right[node] = first;
+                right[left[first]] = node;
+                left[first] = node;
+            }
+        }
+        return rowCount++;
+    }
+
+    /**
+     * Search all the exact covers.
+     * The links are restored when the search is over or stopped.
+     * @param visitor the visitor called for each cover, it can stop the search.
+     * @return the number of covers visited.
+     */
+    public long search(SolutionVisitor visitor) {
+        updates = 0;
+        stopped = false;
+        return search(visitor, 0);
+    }
+
+    /**
+     * Count all the exact covers.
+     * @return the number of covers.
+     */
+    public long count() {
+        return search((rows, count) -> true);
+    }
+
+    /**
+     * Algorithm X : cover the primary column with the fewest rows by each of its rows.
+     */
+    private long search(SolutionVisitor visitor, int k) {
+        if (right[0] == 0) {
+            stopped = !visitor.visit(chosen, k);
+            return 1;
+        }
+        int best = right[0];
+        for (int c = right[best]; c != 0; c = right[c]) {
+            if (size[c] < size[best]) best = c;
+        }
+        if (size[best] == 0) return 0;
+        if (k == chosen.length) chosen = Arrays.copyOf(chosen, k * 2);
+        long found = 0;
+        cover(best);
+        for (int r = down[best]; r != best && !stopped; r = down[r]) {
+            chosen[k] = row[r];
+            for (int j = right[r]; j != r; j = right[j]) cover(column[j]);
+            found += search(visitor, k + 1);
+            for (int j = left[r]; j != r; j = left[j]) uncover(column[j]);
+        }
+        uncover(best);
+        return found;
+    }
+
+    /**
+     * Remove a column from the header list and its rows from the other columns.
+     */
+    private void cover(int c) {
+        right[left[c]] = right[c];
+        left[right[c]] = left[c];
+        for (int i = down[c]; i != c; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                up[down[j]] = up[j];
+                down[up[j]] = down[j];
+                size[column[j]]--;
+                updates++;
+            }
+        }
+    }
+
+    /**
+     * Put back a column removed by cover(), in the reverse order.
+     */
+    private void uncover(int c) {
+        for (int i = up[c]; i != c; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                size[column[j]]++;
+                up[down[j]] = j;
+                down[up[j]] = j;
+            }
+        }
+        right[left[c]] = c;
+        left[right[c]] = c;
+    }
+
+    /**
+     * Grow the node arrays.
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity <= left.length) return;
+        int newCapacity = Math.max(capacity, left.length * 2);
+        left = Arrays.copyOf(left, newCapacity);
+        right = Arrays.copyOf(right, newCapacity);
+        up = Arrays.copyOf(up, newCapacity);
+        down = Arrays.copyOf(down, newCapacity);
+        column = Arrays.copyOf(column, newCapacity);
+        row = Arrays.copyOf(row, newCapacity);
+    }
+
+}
@@ -0,0 +1,278 @@
+package solver;
+
+import geometry.VertexBuffer;
+import shapes.Polygon;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * Lattice class : the grid of cells covering a target silhouette.
+ * The bounding box of the target is divided in square cells of size unit,
+ * and each cell in 4 triangles by its diagonals (TOP, RIGHT, BOTTOM, LEFT).
+ * An outline whose vertices are on the lattice and whose edges are
+ * horizontal, vertical or at 45 degrees covers whole triangles only,
+ * so placing such pieces is an exact cover problem over the triangles.
+ * Triangle (col, row, q) has the index ((row * cols) + col) * 4 + q,
+ * the search always fills the smallest free index first.
+ * This class is immutable.
+ */
+
+public class Lattice {
+
+    // ***** CONSTANTS *****
+    public static final int TOP = 0;
+    public static final int RIGHT = 1;
+    public static final int BOTTOM = 2;
+    public static final int LEFT = 3;
+
+    // Center of each triangle inside a cell, in cell units
+    private static final double[] SAMPLE_X = {0.5, 5.0 / 6, 0.5, 1.0 / 6};
+    private static final double[] SAMPLE_Y = {1.0 / 6, 0.5, 5.0 / 6, 0.5};
+
+
+    // ***** FIELDS *****
+    private final int unit;
+    private final double originX;
+    private final double originY;
+    private final int cols;
+    private final int rows;
+    private final long[] targetMask;
+    private final int targetCells;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct the Lattice of a target.
+     * @param target the silhouette to fill, with vertices on the lattice.
+     * @param unit the size of a cell.
+     */
+    public Lattice(Polygon target, int unit) {
+        this.unit = unit;
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < target.getVertexCount(); i++) {
+            minX = Math.min(minX, target.getVertexX(i));
+            minY = Math.min(minY, target.getVertexY(i));
+            maxX = Math.max(maxX, target.getVertexX(i));
+            maxY = Math.max(maxY, target.getVertexY(i));
+        }
+        this.originX = minX;
+        this.originY = minY;
+        this.cols = (int) Math.round((maxX - minX) / unit);
+        this.rows = (int) Math.round((maxY - minY) / unit);
+        this.targetMask = new long[(cols * rows * 4 + 63) >> 6];
+        int count = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                for (int q = 0; q < 4; q++) {
+                    double x = originX + (col + SAMPLE_X[q]) * unit;
+                    double y = originY + (row + SAMPLE_Y[q]) * unit;
+                    if (target.contains(x, y)) {
+                        int bit = index(col, row, q);
+                        targetMask[bit >> 6] |= 1L << bit;
+                        count++;
+                    }
+                }
+            }
+        }
+        this.targetCells = count;
+    }
+
+
+    // ***** STATIC METHODS *****
+
+    /**
+     * Get the possible lattice units of a target, from the biggest to the smallest :
+     * multiples of the grid step dividing all the target coordinates
+     * relative to its bounding box corner.
+     * @param target the silhouette to fill.
+     * @param step the grid step (ViewTangram.STEP).
+     * @return the possible units, the biggest first.
+     */
+    public static List<Integer> candidateUnits(Polygon target, int step) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < target.getVertexCount(); i++) {
+            minX = Math.min(minX, target.getVertexX(i));
+            minY = Math.min(minY, target.getVertexY(i));
+        }
+        long gcd = 0;
+        for (int i = 0; i < target.getVertexCount(); i++) {
+            gcd = gcd(gcd, Math.round(target.getVertexX(i) - minX));
+            gcd = gcd(gcd, Math.round(target.getVertexY(i) - minY));
+        }
+        List<Integer> units = new ArrayList<>();
+        for (long u = gcd; u >= step; u--) {
+            if (gcd % u == 0 && u % step == 0) units.add((int) u);
+        }
+        return units;
+    }
+
+    /**
+     * Greatest common divisor of two positive values.
+     */
+    static long gcd(long a, long b) {
+        a = Math.abs(a);
+        b = Math.abs(b);
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * Get the x position of the center of a triangle inside its cell.
+     * @param q the triangle inside the cell.
+     * @return the x position, in cell units.
+     */
+    static double sampleX(int q) { return SAMPLE_X[q]; }
+
+    /**
+     * Get the y position of the center of a triangle inside its cell.
+     * @param q the triangle inside the cell.
+     * @return the y position, in cell units.
+     */
+    static double sampleY(int q) { return SAMPLE_Y[q]; }
+
+    /**
+     * Find the triangle of a cell containing a point.
+     * @param fx the x position inside the cell, in cell units.
+     * @param fy the y position inside the cell, in cell units.
+     * @return the triangle (TOP, RIGHT, BOTTOM or LEFT).
+     */
+    static int triangleAt(double fx, double fy) {
+        boolean aboveMain = fy < fx;
+        boolean aboveAnti = fy < 1 - fx;
+        if (aboveMain && aboveAnti) return TOP;
+        if (!aboveMain && !aboveAnti) return BOTTOM;
+        return aboveMain ? RIGHT : LEFT;
+    }
+
+    /**
+     * Test which triangles of a cell grid are covered by an outline.
+     * @param outline the vertices of the outline, relative to the grid corner.
+     * @param unit the size of a cell.
+     * @param cols the number of cells on the x-axe.
+     * @param rows the number of cells on the y-axe.
+     * @return the covered triangles, as {col, row, q} triples sorted by index.
+     */
+    static int[][] coveredTriangles(VertexBuffer outline, int unit, int cols, int rows) {
+        List<int[]> cells = new ArrayList<>();
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                for (int q = 0; q < 4; q++) {
+                    if (outline.contains((col + SAMPLE_X[q]) * unit, (row + SAMPLE_Y[q]) * unit)) {
+                        cells.add(new int[]{col, row, q});
+                    }
+                }
+            }
+        }
+        return cells.toArray(new int[0][]);
+    }
+
+
+    // ***** GETTERS *****
+
+    /**
+     * Get the size of a cell.
+     * @return the size of a cell.
+     */
+    public int getUnit() { return unit; }
+
+    /**
+     * Get the x coordinates of the lattice corner.
+     * @return the x coordinates of the lattice corner.
+     */
+    public double getOriginX() { return originX; }
+
+    /**
+     * Get the y coordinates of the lattice corner.
+     * @return the y coordinates of the lattice corner.
+     */
+    public double getOriginY() { return originY; }
+
+    /**
+     * Get the number of cells on the x-axe.
+     * @return the number of columns.
+     */
+    public int getCols() { return cols; }
+
+    /**
+     * Get the number of cells on the y-axe.
+     * @return the number of rows.
+     */
+    public int getRows() { return rows; }
+
+    /**
+     * Get the number of triangles of the lattice.
+     * @return the number of triangles.
+     */
+    public int size() { return cols * rows * 4; }
+
+    /**
+     * Get the number of triangles covered by the target.
+     * @return the number of triangles to fill.
+     */
+    public int getTargetCells() { return targetCells; }
+
+    /**
+     * Get the number of long words of a mask of the lattice.
+     * @return the number of words.
+     */
+    public int getWordCount() { return targetMask.length; }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Get the index of a triangle.
+     * @param col the cell column.
+     * @param row the cell row.
+     * @param q the triangle inside the cell.
+     * @return the index of the triangle.
+     */
+    public int index(int col, int row, int q) {
+        return ((row * cols) + col) * 4 + q;
+    }
+
+    /**
+     * Check if a triangle is part of the target.
+     * @param index the index of the triangle.
+     * @return true if the triangle must be filled.
+     */
+    public boolean isTarget(int index) {
+        return (targetMask[index >> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Create a mask with the triangles outside the target already set,
+     * so the search only has to fill the free bits.
+     * @return a new mask of the lattice.
+     */
+    public long[] newBoard() {
+        long[] board = new long[targetMask.length];
+        for (int w = 0; w < board.length; w++) board[w] = ~targetMask[w];
+        int extra = board.length * 64 - size();
+        if (extra > 0) board[board.length - 1] |= -1L << (64 - extra);
+        return board;
+    }
+
+    /**
+     * Find the smallest free triangle of a board.
+     * @param board a mask of the lattice, set bits are covered.
+     * @return the index of the first free triangle, or -1 if the board is full.
+     */
+    public static int firstFree(long[] board) {
+        for (int w = 0; w < board.length; w++) {
+            if (board[w] != -1L) return (w << 6) + Long.numberOfTrailingZeros(~board[w]);
+        }
+        return -1;
+    }
+
+}
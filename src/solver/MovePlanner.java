@@ -0,0 +1,415 @@
+package solver;
+
+import geometry.Angle;
+import geometry.Point;
+import geometry.VertexBuffer;
+import shapes.Polygon;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * MovePlanner class : the shortest sequence of moves taking the current pieces to a Solution.
+ * The moves are those of a mouse drag : a translation by one grid step (in the 8 directions)
+ * or a rotation by 45 degrees around the piece rotation center, each one costs 1.
+ * The pose of a piece is (octant, x, y) in grid steps from its current pose,
+ * its vertices are the current ones rotated around the center then snapped to the grid.
+ * The pieces can overlap while they move, so the moves of two pieces are independent :
+ * the shortest plan is the best Solution (with the best exchange of identical pieces)
+ * of the sum of the shortest routes of each piece to its Pose.
+ * Each route is an A* search whose rotation centers stay inside the bounds,
+ * with the admissible heuristic rotation steps plus grid (Chebyshev) distance
+ * and a BitSet closed set indexed by the packed pose.
+ * The routes are cached by piece and packed goal pose during a plan.
+ */
+
+public class MovePlanner {
+
+    // ***** NESTED CLASS *****
+
+    /**
+     * One move of a piece : a translation by one grid step or a rotation by 45 degrees.
+     * This class is immutable.
+     */
+    public static final class Move {
+        private final int piece;
+        private final int dx;
+        private final int dy;
+        private final int rotation;
+
+        private Move(int piece, int dx, int dy, int rotation) {
+            this.piece = piece;
+            this.dx = dx;
+            this.dy = dy;
+            this.rotation = rotation;
+        }
+
+        /**
+         * Get the index of the moved piece.
+         * @return the index of the piece in the planner piece list.
+         */
+        public int getPiece() { return piece; }
+
+        /**
+         * Get the horizontal translation.
+         * @return -step, 0 or step.
+         */
+        public int getDx() { return dx; }
+
+        /**
+         * Get the vertical translation.
+         * @return -step, 0 or step.
+         */
+        public int getDy() { return dy; }
+
+        /**
+         * Get the rotation.
+         * @return -1, 0 or 1 octant (Angle.octant()).
+         */
+        public int getRotation() { return rotation; }
+
+        /**
+         * Check if the move is a rotation.
+         * @return true for a rotation, false for a translation.
+         */
+        public boolean isRotation() { return rotation != 0; }
+
+        /**
+         * Return a String with the Move values.
+         * This method toString() is override from Object class.
+         * @return a String with the Move values.
+         */
+        @Override
+        public String toString() {
+            return isRotation()
+                    ? "Move{piece=" + piece + ", rotation=" + rotation + "}"
+                    : "Move{piece=" + piece + ", dx=" + dx + ", dy=" + dy + "}";
+        }
+    }
+
+    /**
+     * The shortest route of a piece to a Pose.
+     */
+    private static final class Route {
+        private final int cost;
+        private final int[] moves;
+
+        private Route(int cost, int[] moves) {
+            this.cost = cost;
+            this.moves = moves;
+        }
+    }
+
+
+    // ***** CONSTANTS *****
+    private static final int OCTANTS = 8;
+    private static final int UNREACHABLE = Integer.MAX_VALUE / 4;
+    private static final double EPSILON = 0.5;
+    private static final int[] MOVE_DX = {1, 1, 0, -1, -1, -1, 0, 1, 0, 0};
+    private static final int[] MOVE_DY = {0, 1, 1, 1, 0, -1, -1, -1, 0, 0};
+    private static final int[] MOVE_ROTATION = {0, 0, 0, 0, 0, 0, 0, 0, 1, -1};
+    // Open pose key : estimated cost (26 bits) | heuristic (8 bits) | packed pose (30 bits)
+    private static final int INDEX_BITS = 30;
+    private static final int H_BITS = 8;
+    private static final Route NO_ROUTE = new Route(UNREACHABLE, new int[0]);
+
+    // ***** FIELDS *****
+    private final List<Polygon> pieces;
+    private final double[] pivotX;
+    private final double[] pivotY;
+    private final VertexBuffer[][] rotations;
+    private final Polygon target;
+    private final int step;
+    private final int[] xMin;
+    private final int[] yMin;
+    private final int[] width;
+    private final int[] height;
+    private final Map<Long, Route> routes;
+    private long expanded;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct a MovePlanner.
+     * The pieces geometry is copied : later moves of the pieces do not change the planner.
+     * @param pieces the Tangram pieces, the moves use the same indexes.
+     * @param pivots the rotation center of each piece (the Group center).
+     * @param target the silhouette to fill.
+     * @param step the grid step of the translations (ViewTangram.STEP).
+     * @param bounds the area the rotation centers must stay in (e.g. the View).
+     * @throws IllegalArgumentException if the poses of a piece inside the bounds cannot be packed.
+     */
+    public MovePlanner(List<? extends Polygon> pieces, List<Point> pivots, Polygon target, int step, Rectangle2D bounds) {
+        int n = pieces.size();
+        this.pieces = new ArrayList<>();
+        this.pivotX = new double[n];
+        this.pivotY = new double[n];
+        this.rotations = new VertexBuffer[n][OCTANTS];
+        this.xMin = new int[n];
+        this.yMin = new int[n];
+        this.width = new int[n];
+        this.height = new int[n];
+        List<VertexBuffer> outlines = TangramSolver.outlines(pieces);
+        for (int p = 0; p < n; p++) {
+            this.pieces.add(new Polygon(pieces.get(p).getColor(), pieces.get(p).getVertices()));
+            pivotX[p] = pivots.get(p).getX();
+            pivotY[p] = pivots.get(p).getY();
+            for (int k = 0; k < OCTANTS; k++) {
+                VertexBuffer outline = new VertexBuffer(outlines.get(p));
+                outline.rotate(Angle.octant(k), pivotX[p], pivotY[p]);
+                outline.snap(step);
+                rotations[p][k] = outline;
+            }
+            // Grid of the poses, in steps from the current pose
+            xMin[p] = Math.min(0, (int) Math.ceil((bounds.getMinX() - pivotX[p]) / step));
+            yMin[p] = Math.min(0, (int) Math.ceil((bounds.getMinY() - pivotY[p]) / step));
+            width[p] = Math.max(0, (int) Math.floor((bounds.getMaxX() - pivotX[p]) / step)) - xMin[p] + 1;
+            height[p] = Math.max(0, (int) Math.floor((bounds.getMaxY() - pivotY[p]) / step)) - yMin[p] + 1;
+            if ((long) OCTANTS * width[p] * height[p] > 1L << INDEX_BITS) {
+                throw new IllegalArgumentException("The bounds have too many poses for the grid step " + step);
+            }
+        }
+        this.target = target;
+        this.step = step;
+        this.routes = new HashMap<>();
+    }
+
+
+    // ***** GETTERS *****
+
+    /**
+     * Get the number of poses expanded by the A* searches of the last plan.
+     * @return the number of expanded poses.
+     */
+    public long getExpandedCount() { return expanded; }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Find the shortest sequence of moves filling the target,
+     * among all the Solutions on the board. The moves are grouped by piece.
+     * @return an unmodifiable List of Move (empty if the target is already filled),
+     *         or null if no Solution can be reached.
+     */
+    public List<Move> plan() {
+        expanded = 0;
+        routes.clear();
+        int n = pieces.size();
+        SolutionEnumerator enumerator = new SolutionEnumerator(pieces, target, step);
+        if (enumerator.getLattice() == null) return null;
+        PlacementTable table = PlacementTable.of(pieces, enumerator.getLattice(), step);
+        int[][] byType = new int[table.getTypeCount()][];
+        for (int type = 0; type < byType.length; type++) {
+            int count = 0;
+            for (int p = 0; p < n; p++) if (table.getType(p) == type) count++;
+            byType[type] = new int[count];
+            count = 0;
+            for (int p = 0; p < n; p++) if (table.getType(p) == type) byType[type][count++] = p;
+        }
+
+        int bestCost = UNREACHABLE;
+        Route[] bestRoutes = null;
+        for (SolutionRecord record : (Iterable<SolutionRecord>) enumerator.streamAll()::iterator) {
+            Solution solution = record.toSolution();
+            Route[] chosen = new Route[n];
+            int cost = 0;
+            for (int[] group : byType) {
+                // The Poses of a type can be given to its pieces in any order
+                Pose[] slots = new Pose[group.length];
+                for (int i = 0; i < group.length; i++) slots[i] = solution.getPose(group[i]);
+                cost += assign(group, slots, 0, new boolean[group.length], new Route[group.length], 0, UNREACHABLE, chosen);
+                if (cost >= bestCost) break;
+            }
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestRoutes = chosen;
+            }
+        }
+        if (bestRoutes == null) return null;
+
+        List<Move> moves = new ArrayList<>();
+        for (int p = 0; p < n; p++) {
+            for (int m : bestRoutes[p].moves) {
+                moves.add(new Move(p, MOVE_DX[m] * step, MOVE_DY[m] * step, MOVE_ROTATION[m]));
+            }
+        }
+        return Collections.unmodifiableList(moves);
+    }
+
+    /**
+     * Give the Poses of a type to its pieces, trying every order.
+     * @return the smallest cost below best (or best), the routes of a better order are put in chosen.
+     */
+    private int assign(int[] group, Pose[] slots, int i, boolean[] taken, Route[] current,
+                       int cost, int best, Route[] chosen) {
+        if (cost >= best) return best;
+        if (i == group.length) {
+            for (int j = 0; j < group.length; j++) chosen[group[j]] = current[j];
+            return cost;
+        }
+        for (int s = 0; s < slots.length; s++) {
+            if (taken[s]) continue;
+            Route route = route(group[i], slots[s]);
+            taken[s] = true;
+            current[i] = route;
+            best = assign(group, slots, i + 1, taken, current, cost + route.cost, best, chosen);
+            taken[s] = false;
+        }
+        return best;
+    }
+
+    /**
+     * Get the shortest route of a piece to a Pose, from the cache if possible.
+     * The cache key is the piece and its first goal pose : a pose gives exactly one outline.
+     */
+    private Route route(int piece, Pose pose) {
+        List<int[]> goals = goals(piece, pose.getVertexBuffer());
+        if (goals.isEmpty()) return NO_ROUTE;
+        int[] first = goals.get(0);
+        long key = ((long) piece << Integer.SIZE) | pack(piece, first[0], first[1], first[2]);
+        Route route = routes.get(key);
+        if (route == null) {
+            route = search(piece, goals);
+            routes.put(key, route);
+        }
+        return route;
+    }
+
+    /**
+     * Get the goal poses of a piece inside the bounds : the rotations which are a translation of the goal outline.
+     * @return a List of {octant, x, y}, empty if the goal cannot be reached.
+     */
+    private List<int[]> goals(int piece, VertexBuffer goal) {
+        int xMax = xMin[piece] + width[piece] - 1;
+        int yMax = yMin[piece] + height[piece] - 1;
+        List<int[]> goals = new ArrayList<>();
+        for (int k = 0; k < OCTANTS; k++) {
+            VertexBuffer outline = rotations[piece][k];
+            double tx = minX(goal) - minX(outline);
+            double ty = minY(goal) - minY(outline);
+            long gx = Math.round(tx / step);
+            long gy = Math.round(ty / step);
+            if (Math.abs(tx - gx * step) >= EPSILON || Math.abs(ty - gy * step) >= EPSILON) continue;
+            if (gx < xMin[piece] || gx > xMax || gy < yMin[piece] || gy > yMax) continue;
+            if (PlacementTable.sameVertices(outline, tx, ty, goal)) goals.add(new int[]{k, (int) gx, (int) gy});
+        }
+        return goals;
+    }
+
+    /**
+     * Pack a pose of a piece as (octant * width + x) * height + y, relative to the bounds.
+     */
+    private int pack(int piece, int k, int x, int y) {
+        return ((k * width[piece]) + x - xMin[piece]) * height[piece] + y - yMin[piece];
+    }
+
+    /**
+     * A* search of the shortest route of a piece to its goal poses.
+     */
+    private Route search(int piece, List<int[]> goals) {
+        int xMin = this.xMin[piece];
+        int yMin = this.yMin[piece];
+        int width = this.width[piece];
+        int height = this.height[piece];
+        int xMax = xMin + width - 1;
+        int yMax = yMin + height - 1;
+
+        int size = OCTANTS * width * height;
+        int[] cost = new int[size];
+        int[] parent = new int[size];
+        byte[] via = new byte[size];
+        Arrays.fill(cost, UNREACHABLE);
+        BitSet closed = new BitSet(size);
+        PriorityQueue<Long> open = new PriorityQueue<>();
+        int start = pack(piece, 0, 0, 0);
+        cost[start] = 0;
+        open.add(key(heuristic(goals, 0, 0, 0), heuristic(goals, 0, 0, 0), start));
+
+        while (!open.isEmpty()) {
+            int s = (int) (open.poll() & ((1L << INDEX_BITS) - 1));
+            if (closed.get(s)) continue;
+            closed.set(s);
+            expanded++;
+            int k = s / (width * height);
+            int x = (s / height) % width + xMin;
+            int y = s % height + yMin;
+            if (heuristic(goals, k, x, y) == 0) return new Route(cost[s], path(parent, via, start, s));
+            for (int m = 0; m < MOVE_DX.length; m++) {
+                int nk = Math.floorMod(k + MOVE_ROTATION[m], OCTANTS);
+                int nx = x + MOVE_DX[m];
+                int ny = y + MOVE_DY[m];
+                if (nx < xMin || nx > xMax || ny < yMin || ny > yMax) continue;
+                int t = pack(piece, nk, nx, ny);
+                int newCost = cost[s] + 1;
+                if (closed.get(t) || newCost >= cost[t]) continue;
+                cost[t] = newCost;
+                parent[t] = s;
+                via[t] = (byte) m;
+                int h = heuristic(goals, nk, nx, ny);
+                open.add(key(newCost + h, h, t));
+            }
+        }
+        return NO_ROUTE;
+    }
+
+
+    // ***** STATIC METHODS *****
+
+    /**
+     * Rotation steps plus grid distance to the nearest goal pose.
+     */
+    private static int heuristic(List<int[]> goals, int k, int x, int y) {
+        int best = UNREACHABLE;
+        for (int[] goal : goals) {
+            int turns = Math.floorMod(goal[0] - k, OCTANTS);
+            turns = Math.min(turns, OCTANTS - turns);
+            best = Math.min(best, turns + Math.max(Math.abs(goal[1] - x), Math.abs(goal[2] - y)));
+        }
+        return best;
+    }
+
+    /**
+     * Pack the priority of an open pose : by estimated cost, then by heuristic.
+     * The estimated cost stays far below its 26 bits : the heuristic is consistent,
+     * so it is at most the grid distance to the goal plus a few rotations.
+     */
+    private static long key(int f, int h, int index) {
+        return ((long) f << (H_BITS + INDEX_BITS)) | ((long) Math.min(h, (1 << H_BITS) - 1) << INDEX_BITS) | index;
+    }
+
+    /**
+     * Rebuild the moves from the start to a pose.
+     */
+    private static int[] path(int[] parent, byte[] via, int start, int end) {
+        int length = 0;
+        for (int s = end; s != start; s = parent[s]) length++;
+        int[] moves = new int[length];
+        for (int s = end; s != start; s = parent[s]) moves[--length] = via[s];
+        return moves;
+    }
+
+    private static double minX(VertexBuffer outline) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < outline.size(); i++) min = Math.min(min, outline.getX(i));
+        return min;
+    }
+
+    private static double minY(VertexBuffer outline) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < outline.size(); i++) min = Math.min(min, outline.getY(i));
+        return min;
+    }
+
+}
@@ -0,0 +1,199 @@
+package solver;
+
+import geometry.Clipping;
+import geometry.VertexBuffer;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * Orientation class : one rotation of a piece type, precomputed for a Lattice.
+ * It stores the vertex template relative to its bounding box corner,
+ * the outward unit normal of each edge, the occupancy mask of its own
+ * bounding box cells and the triangle offsets on the Lattice,
+ * so that placing it is an integer offset from its first triangle.
+ * This class is immutable and shared between threads.
+ */
+
+public final class Orientation {
+
+    // ***** FIELDS *****
+    final int width;
+    final int height;
+    final int anchorCol;
+    final int anchorRow;
+    final int anchorQ;
+    final int[] offsets;
+    private final VertexBuffer outline;
+    private final double[] normalX;
+    private final double[] normalY;
+    private final long[] mask;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct an Orientation.
+     * @param outline the rotated vertices, relative to the bounding box corner (not copied).
+     * @param lattice the Lattice of the target.
+     * @param cells the covered triangles as {col, row, q} triples sorted by index.
+     */
+    Orientation(VertexBuffer outline, Lattice lattice, int[][] cells) {
+        int unit = lattice.getUnit();
+        double maxX = 0, maxY = 0;
+        for (int i = 0; i < outline.size(); i++) {
+            maxX = Math.max(maxX, outline.getX(i));
+            maxY = Math.max(maxY, outline.getY(i));
+        }
+        this.outline = outline;
+        this.width = (int) Math.round(maxX / unit);
+        this.height = (int) Math.round(maxY / unit);
+        this.anchorCol = cells[0][0];
+        this.anchorRow = cells[0][1];
+        this.anchorQ = cells[0][2];
+
+        // Occupancy of the bounding box cells and offsets on the lattice
+        this.mask = new long[(width * height * 4 + 63) >> 6];
+        this.offsets = new int[cells.length];
+        int anchor = lattice.index(anchorCol, anchorRow, anchorQ);
+        for (int i = 0; i < cells.length; i++) {
+            int bit = ((cells[i][1] * width) + cells[i][0]) * 4 + cells[i][2];
+            mask[bit >> 6] |= 1L << bit;
+            offsets[i] = lattice.index(cells[i][0], cells[i][1], cells[i][2]) - anchor;
+        }
+
+        // Outward edge normals, whatever the vertices order
+        int n = outline.size();
+        double orientation = Math.signum(Clipping.signedArea(outline));
+        this.normalX = new double[n];
+        this.normalY = new double[n];
+        for (int i = 0; i < n; i++) {
+            int j = i == n - 1 ? 0 : i + 1;
+            double dx = outline.getX(j) - outline.getX(i);
+            double dy = outline.getY(j) - outline.getY(i);
+            double length = Math.hypot(dx, dy);
+            normalX[i] = orientation * dy / length;
+            normalY[i] = -orientation * dx / length;
+        }
+    }
+
+
+    // ***** GETTERS *****
+
+    /**
+     * Get the vertex template, relative to the bounding box corner.
+     * @return a new VertexBuffer.
+     */
+    public VertexBuffer getOutline() { return new VertexBuffer(outline); }
+
+    /**
+     * Get the number of edges (and of vertices) of the template.
+     * @return the number of edges.
+     */
+    public int getEdgeCount() { return normalX.length; }
+
+    /**
+     * Get the x component of the outward unit normal of an edge.
+     * @param i the index of the edge (from vertex i to vertex i + 1).
+     * @return the x component of the normal.
+     */
+    public double getNormalX(int i) { return normalX[i]; }
+
+    /**
+     * Get the y component of the outward unit normal of an edge.
+     * @param i the index of the edge (from vertex i to vertex i + 1).
+     * @return the y component of the normal.
+     */
+    public double getNormalY(int i) { return normalY[i]; }
+
+    /**
+     * Get the number of lattice cells on the x-axe of the bounding box.
+     * @return the width in cells.
+     */
+    public int getWidth() { return width; }
+
+    /**
+     * Get the number of lattice cells on the y-axe of the bounding box.
+     * @return the height in cells.
+     */
+    public int getHeight() { return height; }
+
+    /**
+     * Get the number of triangles covered.
+     * @return the number of triangles.
+     */
+    public int size() { return offsets.length; }
+
+    /**
+     * Check if a triangle of the bounding box is covered.
+     * @param col the cell column inside the bounding box.
+     * @param row the cell row inside the bounding box.
+     * @param q the triangle inside the cell.
+     * @return true if the triangle is covered.
+     */
+    public boolean covers(int col, int row, int q) {
+        int bit = ((row * width) + col) * 4 + q;
+        return (mask[bit >> 6] & (1L << bit)) != 0;
+    }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Get the lattice column of the bounding box corner when the first
+     * triangle covers a cell.
+     * @param lattice the Lattice of the table.
+     * @param cell the index of the covered triangle.
+     * @return the lattice column of the corner.
+     */
+    public int colAt(Lattice lattice, int cell) {
+        return (cell >> 2) % lattice.getCols() - anchorCol;
+    }
+
+    /**
+     * Get the lattice row of the bounding box corner when the first
+     * triangle covers a cell.
+     * @param lattice the Lattice of the table.
+     * @param cell the index of the covered triangle.
+     * @return the lattice row of the corner.
+     */
+    public int rowAt(Lattice lattice, int cell) {
+        return (cell >> 2) / lattice.getCols() - anchorRow;
+    }
+
+    /**
+     * Check if the first triangle can cover a free cell of a board :
+     * same triangle inside the cell, bounding box inside the lattice
+     * and all the triangles free.
+     * @param lattice the Lattice of the table.
+     * @param board the covered triangles.
+     * @param cell the index of the free triangle.
+     * @return true if the Orientation can be placed.
+     */
+    public boolean canPlace(Lattice lattice, long[] board, int cell) {
+        if (anchorQ != (cell & 3)) return false;
+        int col0 = colAt(lattice, cell);
+        int row0 = rowAt(lattice, cell);
+        if (col0 < 0 || row0 < 0
+                || col0 + width > lattice.getCols()
+                || row0 + height > lattice.getRows()) return false;
+        for (int offset : offsets) {
+            int bit = cell + offset;
+            if ((board[bit >> 6] & (1L << bit)) != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Cover (or uncover) the triangles when the first triangle covers a cell.
+     * @param board the covered triangles, modified.
+     * @param cell the index of the first triangle.
+     */
+    public void toggle(long[] board, int cell) {
+        for (int offset : offsets) {
+            int bit = cell + offset;
+            board[bit >> 6] ^= 1L << bit;
+        }
+    }
+
+}
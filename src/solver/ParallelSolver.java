@@ -0,0 +1,293 @@
+package solver;
+
+import geometry.VertexBuffer;
+import shapes.Polygon;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * ParallelSolver class : the TangramSolver search split in RecursiveTask objects
+ * run by a work-stealing ForkJoinPool. The first levels of the search tree
+ * fork one task per placement, each with its own copy of the board,
+ * the deeper levels are searched sequentially inside a task.
+ * Each call of solve() or solveAll() is a run with its own cancellation flag and Solutions,
+ * so the solver can be reused and called from several threads at once.
+ * In first-solution mode the flag of the run cancels all its tasks
+ * as soon as one of them fills the target.
+ * In enumeration mode one Solution of each class of Solutions equivalent
+ * by a target symmetry or by exchanging identical pieces (see SymmetryAnalyzer)
+ * is collected, on the first lattice with a Solution.
+ * All the tasks share a lock-free TranspositionTable of the boards without Solution.
+ */
+
+public class ParallelSolver {
+
+    // ***** CONSTANTS *****
+    // Levels of the search tree forking one task per placement
+    private static final int SPLIT_DEPTH = 3;
+
+
+    // ***** NESTED CLASS *****
+
+    /**
+     * Run class : the state of one search, shared by all its tasks.
+     */
+    private static final class Run {
+        private final boolean firstOnly;
+        private final AtomicBoolean stop;
+        private final Queue<Solution> solutions;
+
+        private Run(boolean firstOnly) {
+            this.firstOnly = firstOnly;
+            this.stop = new AtomicBoolean();
+            this.solutions = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    /**
+     * SearchTask class : search the subtree below a partial placement.
+     * It returns the number of Solutions found in the subtree.
+     */
+    private final class SearchTask extends RecursiveTask<Integer> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Run run;
+        private final Lattice lattice;
+        private final PlacementTable table;
+        private final Zobrist zobrist;
+        private final SymmetryAnalyzer symmetry;
+        private final long[] board;
+        private final int used;
+        private final long hash;
+        private final int depth;
+        private final int[] placedOrientation;
+        private final int[] placedCol;
+        private final int[] placedRow;
+
+        /**
+         * Construct a SearchTask (the arrays are owned by the task).
+         */
+        SearchTask(Run run, Lattice lattice, PlacementTable table, Zobrist zobrist, SymmetryAnalyzer symmetry, long[] board, int used,
+                   long hash, int depth, int[] placedOrientation, int[] placedCol, int[] placedRow) {
+            this.run = run;
+            this.lattice = lattice;
+            this.table = table;
+            this.zobrist = zobrist;
+            this.symmetry = symmetry;
+            this.board = board;
+            this.used = used;
+            this.hash = hash;
+            this.depth = depth;
+            this.placedOrientation = placedOrientation;
+            this.placedCol = placedCol;
+            this.placedRow = placedRow;
+        }
+
+        /**
+         * Fork the children tasks on the first levels, search sequentially below.
+         * @return the number of Solutions found.
+         */
+        @Override
+        protected Integer compute() {
+            if (depth >= SPLIT_DEPTH) return search(board, used, hash);
+            if (run.stop.get()) return 0;
+            int cell = Lattice.firstFree(board);
+            if (cell < 0) return found(used);
+            if (transpositions.contains(hash)) return 0;
+            List<SearchTask> children = new ArrayList<>();
+            for (int p = 0; p < table.getPieceCount(); p++) {
+                if ((used & (1 << p)) != 0 || !symmetry.mayUse(p, used)) continue;
+                int type = table.getType(p);
+                Orientation[] orientations = table.orientationsOf(type);
+                for (int o = 0; o < orientations.length; o++) {
+                    Orientation orientation = orientations[o];
+                    if (!orientation.canPlace(lattice, board, cell) || !symmetry.isCanonical(p, o, cell)) continue;
+                    long[] childBoard = board.clone();
+                    orientation.toggle(childBoard, cell);
+                    int[] childOrientation = placedOrientation.clone();
+                    int[] childCol = placedCol.clone();
+                    int[] childRow = placedRow.clone();
+                    place(p, o, orientation, cell, childOrientation, childCol, childRow);
+                    children.add(new SearchTask(run, lattice, table, zobrist, symmetry, childBoard, used | (1 << p),
+                            hash ^ zobrist.key(type, o, cell), depth + 1, childOrientation, childCol, childRow));
+                }
+            }
+            int count = 0;
+            for (SearchTask child : invokeAll(children)) count += child.join();
+            failed(count, used, hash);
+            return count;
+        }
+
+        /**
+         * Sequential depth-first search, stopped by the flag of the run.
+         */
+        private int search(long[] board, int used, long hash) {
+            if (run.stop.get()) return 0;
+            int cell = Lattice.firstFree(board);
+            if (cell < 0) return found(used);
+            if (transpositions.contains(hash)) return 0;
+            int count = 0;
+            for (int p = 0; p < table.getPieceCount(); p++) {
+                if ((used & (1 << p)) != 0 || !symmetry.mayUse(p, used)) continue;
+                int type = table.getType(p);
+                Orientation[] orientations = table.orientationsOf(type);
+                for (int o = 0; o < orientations.length; o++) {
+                    Orientation orientation = orientations[o];
+                    if (!orientation.canPlace(lattice, board, cell) || !symmetry.isCanonical(p, o, cell)) continue;
+                    orientation.toggle(board, cell);
+                    place(p, o, orientation, cell, placedOrientation, placedCol, placedRow);
+                    count += search(board, used | (1 << p), hash ^ zobrist.key(type, o, cell));
+                    orientation.toggle(board, cell);
+                    if (run.stop.get()) return count;
+                }
+            }
+            failed(count, used, hash);
+            return count;
+        }
+
+        /**
+         * Store a board in the TranspositionTable if its whole subtree was searched without Solution.
+         */
+        private void failed(int count, int used, long hash) {
+            if (count == 0 && !run.stop.get()) transpositions.store(hash, table.getPieceCount() - Integer.bitCount(used));
+        }
+
+        /**
+         * Store the placement of a piece inside the placed arrays.
+         */
+        private void place(int p, int o, Orientation orientation, int cell,
+                           int[] placedOrientation, int[] placedCol, int[] placedRow) {
+            placedOrientation[p] = o;
+            placedCol[p] = orientation.colAt(lattice, cell);
+            placedRow[p] = orientation.rowAt(lattice, cell);
+        }
+
+        /**
+         * Record a full board : a Solution if all the pieces are placed.
+         */
+        private int found(int used) {
+            if (used != (1 << table.getPieceCount()) - 1) return 0;
+            List<Pose> poses = new ArrayList<>();
+            for (int p = 0; p < table.getPieceCount(); p++) {
+                poses.add(table.toPose(lattice, p, placedOrientation[p], placedCol[p], placedRow[p]));
+            }
+            run.solutions.add(new Solution(poses));
+            if (run.firstOnly) run.stop.set(true);
+            return 1;
+        }
+    }
+
+
+    // ***** FIELDS *****
+    private final List<VertexBuffer> pieces;
+    private final Polygon target;
+    private final int step;
+    private final ForkJoinPool pool;
+    private final TranspositionTable transpositions;
+    private final Set<Run> running;
+    private boolean cancelPending;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct a ParallelSolver running on the common ForkJoinPool.
+     * @param pieces the Tangram pieces, the poses use the same indexes.
+     * @param target the silhouette to fill.
+     * @param step the grid step the pieces are snapped to (ViewTangram.STEP).
+     */
+    public ParallelSolver(List<? extends Polygon> pieces, Polygon target, int step) {
+        this(pieces, target, step, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Construct a ParallelSolver.
+     * The pieces geometry is copied : later moves of the pieces do not change the solver.
+     * @param pieces the Tangram pieces, the poses use the same indexes.
+     * @param target the silhouette to fill.
+     * @param step the grid step the pieces are snapped to (ViewTangram.STEP).
+     * @param pool the ForkJoinPool running the tasks.
+     */
+    public ParallelSolver(List<? extends Polygon> pieces, Polygon target, int step, ForkJoinPool pool) {
+        this.pieces = TangramSolver.outlines(pieces);
+        this.target = target;
+        this.step = step;
+        this.pool = pool;
+        this.transpositions = new TranspositionTable(TangramSolver.TABLE_BUCKETS_LOG2);
+        this.running = new HashSet<>();
+    }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Search a Solution in parallel, the first task filling the target stops the others.
+     * @return a Solution, or null if the pieces cannot fill the target or if the search was cancelled.
+     */
+    public Solution solve() {
+        List<Solution> found = run(true);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * Enumerate all the Solutions in parallel,
+     * on the biggest lattice unit having at least one Solution.
+     * @return a new List of Solution, empty if there is none.
+     */
+    public List<Solution> solveAll() {
+        return run(false);
+    }
+
+    /**
+     * Cancel the running searches : solve() and solveAll() return what was already found.
+     * If no search is running, the next one is cancelled as soon as it starts
+     * (e.g. when cancel() wins the race against the thread starting the search).
+     */
+    public synchronized void cancel() {
+        if (running.isEmpty()) cancelPending = true;
+        for (Run run : running) run.stop.set(true);
+    }
+
+    /**
+     * Run the search on each lattice unit until a Solution is found.
+     */
+    private List<Solution> run(boolean firstOnly) {
+        Run run = new Run(firstOnly);
+        synchronized (this) {
+            if (cancelPending) run.stop.set(true);
+            cancelPending = false;
+            running.add(run);
+        }
+        try {
+            for (int unit : Lattice.candidateUnits(target, step)) {
+                if (run.stop.get()) break;
+                Lattice lattice = new Lattice(target, unit);
+                PlacementTable table = PlacementTable.forOutlines(pieces, lattice, step);
+                if (!table.isFeasible(lattice)) continue;
+                int n = pieces.size();
+                pool.invoke(new SearchTask(run, lattice, table, Zobrist.of(table, lattice),
+                        new SymmetryAnalyzer(table, lattice), lattice.newBoard(), 0,
+                        TangramSolver.rootHash(unit), 0, new int[n], new int[n], new int[n]));
+                if (!run.solutions.isEmpty() || run.stop.get()) break;
+            }
+        } finally {
+            synchronized (this) {
+                running.remove(run);
+            }
+        }
+        return new ArrayList<>(run.solutions);
+    }
+
+}
@@ -0,0 +1,444 @@
+package solver;
+
+import geometry.Angle;
+import geometry.Clipping;
+import geometry.VertexBuffer;
+import shapes.Polygon;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * PlacementTable class : the Orientation objects of a piece set on a lattice size.
+ * Each piece is rotated around its first vertex by the eight multiples of 45 degrees,
+ * snapped to the grid and moved to the origin. The rotations with vertices on the lattice,
+ * edges at a multiple of 45 degrees, the piece area and fitting in the lattice are kept,
+ * without duplicates. Pieces with the same rotations share a type
+ * (the two big triangles, the two small triangles) and the same Orientation objects.
+ * Tables are cached by lattice unit and size and by the piece outlines snapped and moved
+ * to the origin, so a piece translated on the grid keeps its table. The vertex order of an
+ * outline gives its current rotation, which the octants of the table are relative to.
+ * The cache keeps the least recently used tables up to a bound.
+ * This class is immutable and shared between threads.
+ */
+
+public final class PlacementTable {
+
+    // ***** NESTED CLASS *****
+
+    /**
+     * The key of a cached table : lattice, step and normalized piece outlines as integers.
+     */
+    private static final class TableKey {
+        private final int[] data;
+        private final int hash;
+
+        private TableKey(int[] data) {
+            this.data = data;
+            this.hash = Arrays.hashCode(data);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof TableKey && Arrays.equals(data, ((TableKey) o).data);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+
+    // ***** CONSTANTS *****
+    private static final int CACHE_SIZE = 64;
+    private static final LinkedHashMap<TableKey, PlacementTable> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+    private static final double EPSILON = 0.5;
+
+
+    // ***** FIELDS *****
+    private final int unit;
+    private final int[] types;
+    private final int[] typeCells;
+    private final Orientation[][] orientations;
+    private final int[][] octants;
+    private final VertexBuffer[][] outlines;
+    private final int cells;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct a PlacementTable.
+     * @param pieces the vertices of the pieces.
+     * @param lattice the Lattice giving the unit and the size.
+     * @param step the grid step.
+     */
+    private PlacementTable(List<VertexBuffer> pieces, Lattice lattice, int step) {
+        this.unit = lattice.getUnit();
+        int n = pieces.size();
+        this.types = new int[n];
+        this.octants = new int[n][];
+        this.outlines = new VertexBuffer[n][];
+        List<int[][][]> typeShapes = new ArrayList<>();
+        List<Orientation[]> typeOrientations = new ArrayList<>();
+        List<Integer> typeSizes = new ArrayList<>();
+        int total = 0;
+
+        for (int p = 0; p < n; p++) {
+            List<Integer> pieceOctants = new ArrayList<>();
+            List<VertexBuffer> pieceOutlines = new ArrayList<>();
+            List<int[][]> pieceCells = new ArrayList<>();
+            rotations(pieces.get(p), lattice, step, pieceOctants, pieceOutlines, pieceCells);
+
+            // Same type as a previous piece if the rotations cover the same triangles
+            int type = -1;
+            for (int t = 0; t < typeShapes.size() && type < 0; t++) {
+                if (sameShapes(typeShapes.get(t), pieceCells)) type = t;
+            }
+            if (type < 0) {
+                type = typeShapes.size();
+                int[][][] shapes = pieceCells.toArray(new int[0][][]);
+                // Canonical order : the indexes do not depend on the current rotation of the piece
+                Arrays.sort(shapes, PlacementTable::compareShapes);
+                Orientation[] list = new Orientation[shapes.length];
+                for (int o = 0; o < shapes.length; o++) {
+                    list[o] = new Orientation(pieceOutlines.get(indexOf(pieceCells, shapes[o])), lattice, shapes[o]);
+                }
+                typeShapes.add(shapes);
+                typeOrientations.add(list);
+                typeSizes.add(shapes.length == 0 ? 0 : shapes[0].length);
+            }
+            types[p] = type;
+
+            // Rotations of the piece in the order of its type
+            int[][][] shapes = typeShapes.get(type);
+            octants[p] = new int[shapes.length];
+            outlines[p] = new VertexBuffer[shapes.length];
+            for (int o = 0; o < shapes.length; o++) {
+                int k = indexOf(pieceCells, shapes[o]);
+                octants[p][o] = pieceOctants.get(k);
+                outlines[p][o] = pieceOutlines.get(k);
+            }
+            total += typeSizes.get(type);
+        }
+        this.orientations = typeOrientations.toArray(new Orientation[0][]);
+        this.typeCells = new int[typeSizes.size()];
+        for (int t = 0; t < typeCells.length; t++) typeCells[t] = typeSizes.get(t);
+        this.cells = total;
+    }
+
+
+    // ***** STATIC METHODS *****
+
+    /**
+     * Get the PlacementTable of Tangram pieces on a Lattice, from the cache if possible.
+     * @param pieces the Tangram pieces.
+     * @param lattice the Lattice of the target.
+     * @param step the grid step the pieces are snapped to (ViewTangram.STEP).
+     * @return the shared PlacementTable.
+     */
+    public static PlacementTable of(List<? extends Polygon> pieces, Lattice lattice, int step) {
+        return forOutlines(TangramSolver.outlines(pieces), lattice, step);
+    }
+
+    /**
+     * Get the PlacementTable of piece outlines on a Lattice, from the cache if possible.
+     * @param pieces the vertices of the pieces.
+     * @param lattice the Lattice of the target.
+     * @param step the grid step.
+     * @return the shared PlacementTable.
+     */
+    static PlacementTable forOutlines(List<VertexBuffer> pieces, Lattice lattice, int step) {
+        TableKey key = keyOf(pieces, lattice, step);
+        synchronized (CACHE) {
+            PlacementTable table = CACHE.get(key);
+            if (table != null) return table;
+        }
+        // Built outside the lock : two threads may build the same table, the first one is kept
+        PlacementTable table = new PlacementTable(pieces, lattice, step);
+        synchronized (CACHE) {
+            PlacementTable previous = CACHE.putIfAbsent(key, table);
+            if (previous != null) return previous;
+            Iterator<PlacementTable> eldest = CACHE.values().iterator();
+            while (CACHE.size() > CACHE_SIZE) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Build the cache key of piece outlines on a Lattice :
+     * each outline is snapped and moved to the origin, so the key does not depend on
+     * a translation of the pieces on the grid.
+     */
+    private static TableKey keyOf(List<VertexBuffer> pieces, Lattice lattice, int step) {
+        int size = 4;
+        for (VertexBuffer piece : pieces) size += 1 + 2 * piece.size();
+        int[] data = new int[size];
+        int k = 0;
+        data[k++] = lattice.getUnit();
+        data[k++] = lattice.getCols();
+        data[k++] = lattice.getRows();
+        data[k++] = step;
+        for (VertexBuffer piece : pieces) {
+            VertexBuffer outline = snapped(piece, 0, step);
+            data[k++] = outline.size();
+            for (int i = 0; i < outline.size(); i++) {
+                data[k++] = (int) Math.round(outline.getX(i));
+                data[k++] = (int) Math.round(outline.getY(i));
+            }
+        }
+        return new TableKey(data);
+    }
+
+    /**
+     * Compute the distinct rotations of a piece that fit on a Lattice.
+     */
+    private static void rotations(VertexBuffer piece, Lattice lattice, int step,
+                                  List<Integer> octants, List<VertexBuffer> outlines, List<int[][]> cells) {
+        int unit = lattice.getUnit();
+        long expectedCells = Math.round(Clipping.area(snapped(piece, 0, step)) * 4 / ((double) unit * unit));
+        for (int k = 0; k < 8; k++) {
+            VertexBuffer outline = snapped(piece, k, step);
+            if (!onLattice(outline, unit)) continue;
+            double maxX = 0, maxY = 0;
+            for (int i = 0; i < outline.size(); i++) {
+                maxX = Math.max(maxX, outline.getX(i));
+                maxY = Math.max(maxY, outline.getY(i));
+            }
+            int width = (int) Math.round(maxX / unit);
+            int height = (int) Math.round(maxY / unit);
+            if (width > lattice.getCols() || height > lattice.getRows()) continue;
+            int[][] covered = Lattice.coveredTriangles(outline, unit, width, height);
+            if (covered.length == 0 || covered.length != expectedCells || indexOf(cells, covered) >= 0) continue;
+            octants.add(k);
+            outlines.add(outline);
+            cells.add(covered);
+        }
+    }
+
+    /**
+     * Rotate a piece around its first vertex by an octant, snap it to the grid
+     * and move its bounding box corner to the origin.
+     */
+    static VertexBuffer snapped(VertexBuffer piece, int octant, int step) {
+        VertexBuffer outline = new VertexBuffer(piece);
+        outline.rotate(Angle.octant(octant), piece.getX(0), piece.getY(0));
+        outline.snap(step);
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < outline.size(); i++) {
+            minX = Math.min(minX, outline.getX(i));
+            minY = Math.min(minY, outline.getY(i));
+        }
+        outline.translate(-minX, -minY);
+        return outline;
+    }
+
+    /**
+     * Check if an outline has its vertices on the lattice
+     * and its edges at a multiple of 45 degrees.
+     */
+    private static boolean onLattice(VertexBuffer outline, int unit) {
+        int n = outline.size();
+        for (int i = 0; i < n; i++) {
+            if (Math.round(outline.getX(i)) % unit != 0 || Math.round(outline.getY(i)) % unit != 0) return false;
+            int j = i == n - 1 ? 0 : i + 1;
+            long dx = Math.abs(Math.round(outline.getX(j) - outline.getX(i)));
+            long dy = Math.abs(Math.round(outline.getY(j) - outline.getY(i)));
+            if (dx != 0 && dy != 0 && dx != dy) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Check if two pieces have the same set of rotations.
+     */
+    private static boolean sameShapes(int[][][] shapes, List<int[][]> cells) {
+        if (shapes.length != cells.size()) return false;
+        for (int[][] shape : shapes) {
+            if (indexOf(cells, shape) < 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Compare two rotations by their covered triangles, in lexicographic order.
+     */
+    private static int compareShapes(int[][] a, int[][] b) {
+        if (a.length != b.length) return Integer.compare(a.length, b.length);
+        for (int i = 0; i < a.length; i++) {
+            int c = Arrays.compare(a[i], b[i]);
+            if (c != 0) return c;
+        }
+        return 0;
+    }
+
+    /**
+     * Check if an outline moved by (dx, dy) has the same vertices as another one, in any order.
+     */
+    static boolean sameVertices(VertexBuffer outline, double dx, double dy, VertexBuffer vertices) {
+        if (outline.size() != vertices.size()) return false;
+        for (int i = 0; i < outline.size(); i++) {
+            boolean found = false;
+            for (int j = 0; j < vertices.size() && !found; j++) {
+                found = Math.abs(outline.getX(i) + dx - vertices.getX(j)) < EPSILON
+                        && Math.abs(outline.getY(i) + dy - vertices.getY(j)) < EPSILON;
+            }
+            if (!found) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Find a rotation inside a list, -1 if absent.
+     */
+    private static int indexOf(List<int[][]> cells, int[][] shape) {
+        for (int i = 0; i < cells.size(); i++) {
+            if (Arrays.deepEquals(cells.get(i), shape)) return i;
+        }
+        return -1;
+    }
+
+
+    // ***** GETTERS *****
+
+    /**
+     * Get the size of a lattice cell.
+     * @return the lattice unit.
+     */
+    public int getUnit() { return unit; }
+
+    /**
+     * Get the number of pieces.
+     * @return the number of pieces.
+     */
+    public int getPieceCount() { return types.length; }
+
+    /**
+     * Get the number of piece types.
+     * @return the number of types.
+     */
+    public int getTypeCount() { return orientations.length; }
+
+    /**
+     * Get the type of a piece : pieces with the same type are interchangeable.
+     * @param piece the index of the piece.
+     * @return the index of its type.
+     */
+    public int getType(int piece) { return types[piece]; }
+
+    /**
+     * Get the number of triangles covered by a piece type.
+     * @param type the index of the type.
+     * @return the number of triangles.
+     */
+    public int getTypeCells(int type) { return typeCells[type]; }
+
+    /**
+     * Get the number of triangles covered by all the pieces.
+     * @return the number of triangles.
+     */
+    public int getCells() { return cells; }
+
+    /**
+     * Get the number of Orientation objects of a piece type.
+     * @param type the index of the type.
+     * @return the number of orientations, zero if the type does not fit on the lattice.
+     */
+    public int getOrientationCount(int type) { return orientations[type].length; }
+
+    /**
+     * Get an Orientation of a piece type.
+     * @param type the index of the type.
+     * @param o the index of the Orientation.
+     * @return the shared Orientation.
+     */
+    public Orientation getOrientation(int type, int o) { return orientations[type][o]; }
+
+    /**
+     * Get the Orientation objects of a piece type (shared array, must not be modified).
+     */
+    Orientation[] orientationsOf(int type) { return orientations[type]; }
+
+    /**
+     * Get the rotation of a piece giving an Orientation of its type.
+     * @param piece the index of the piece.
+     * @param o the index of the Orientation.
+     * @return the octant of the rotation around the first vertex of the piece.
+     */
+    public int getOctant(int piece, int o) { return octants[piece][o]; }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Check if the table can fill a target : every piece has an Orientation
+     * and the pieces cover as many triangles as the target.
+     * @param lattice the Lattice of the target, with the same unit and size as the table.
+     * @return true if the search can start.
+     */
+    public boolean isFeasible(Lattice lattice) {
+        return fitsAll() && cells == lattice.getTargetCells();
+    }
+
+    /**
+     * Check if every piece has at least one Orientation on the lattice.
+     * @return true if no piece is too big or off the lattice.
+     */
+    public boolean fitsAll() {
+        for (Orientation[] list : orientations) {
+            if (list.length == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Find the Orientation and the lattice offset of a piece at a given position,
+     * e.g. a piece already placed by the user.
+     * @param lattice the Lattice of the target, with the same unit and size as the table.
+     * @param piece the index of the piece.
+     * @param vertices the current vertices of the piece.
+     * @return {o, col, row}, or null if the piece is not on a lattice placement.
+     */
+    public int[] placementOf(Lattice lattice, int piece, VertexBuffer vertices) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < vertices.size(); i++) {
+            minX = Math.min(minX, vertices.getX(i));
+            minY = Math.min(minY, vertices.getY(i));
+        }
+        long col = Math.round((minX - lattice.getOriginX()) / unit);
+        long row = Math.round((minY - lattice.getOriginY()) / unit);
+        double x = lattice.getOriginX() + col * unit;
+        double y = lattice.getOriginY() + row * unit;
+        if (col < 0 || row < 0 || Math.abs(minX - x) >= EPSILON || Math.abs(minY - y) >= EPSILON) return null;
+        for (int o = 0; o < outlines[piece].length; o++) {
+            if (sameVertices(outlines[piece][o], x, y, vertices)) return new int[]{o, (int) col, (int) row};
+        }
+        return null;
+    }
+
+    /**
+     * Create the Pose of a piece from an Orientation and its lattice offset.
+     * @param lattice the Lattice of the target, with the same unit and size as the table.
+     * @param piece the index of the piece.
+     * @param o the index of the Orientation of its type.
+     * @param col the lattice column of the bounding box corner.
+     * @param row the lattice row of the bounding box corner.
+     * @return a new Pose.
+     */
+    public Pose toPose(Lattice lattice, int piece, int o, int col, int row) {
+        VertexBuffer vertices = new VertexBuffer(outlines[piece][o]);
+        vertices.translate(lattice.getOriginX() + col * unit, lattice.getOriginY() + row * unit);
+        return new Pose(piece, octants[piece][o], col, row, vertices);
+    }
+
+}
@@ -0,0 +1,118 @@
+package solver;
+
+import geometry.Point;
+import geometry.VertexBuffer;
+import shapes.Polygon;
+
+import java.util.ArrayList;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * Pose class : the placement of one Tangram piece found by a solver.
+ * The piece is rotated by octant * 45 degrees around its first vertex
+ * (from its geometry when the solver was created), then moved so that
+ * its outline is at the given vertices.
+ * This class is immutable.
+ */
+
+public class Pose {
+
+    // ***** FIELDS *****
+    private final int piece;
+    private final int octant;
+    private final int col;
+    private final int row;
+    private final VertexBuffer vertices;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct a Pose.
+     * @param piece the index of the piece in the solver piece list.
+     * @param octant the rotation of the piece, in steps of 45 degrees.
+     * @param col the lattice column of the piece template corner.
+     * @param row the lattice row of the piece template corner.
+     * @param vertices the final vertices of the piece (copied).
+     */
+    public Pose(int piece, int octant, int col, int row, VertexBuffer vertices) {
+        this.piece = piece;
+        this.octant = octant;
+        this.col = col;
+        this.row = row;
+        this.vertices = new VertexBuffer(vertices);
+    }
+
+
+    // ***** GETTERS *****
+
+    /**
+     * Get the index of the piece in the solver piece list.
+     * @return the index of the piece.
+     */
+    public int getPiece() { return piece; }
+
+    /**
+     * Get the rotation of the piece, in steps of 45 degrees.
+     * @return the octant, between 0 and 7.
+     */
+    public int getOctant() { return octant; }
+
+    /**
+     * Get the lattice column of the piece template corner.
+     * @return the lattice column.
+     */
+    public int getCol() { return col; }
+
+    /**
+     * Get the lattice row of the piece template corner.
+     * @return the lattice row.
+     */
+    public int getRow() { return row; }
+
+    /**
+     * Get the final vertices of the piece.
+     * @return a new ArrayList of Point.
+     */
+    public ArrayList<Point> getVertices() { return vertices.toPoints(); }
+
+    /**
+     * Get the final vertices of the piece.
+     * @return a new VertexBuffer.
+     */
+    public VertexBuffer getVertexBuffer() { return new VertexBuffer(vertices); }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Check if a piece is already at the Pose.
+     * @param piece the Polygon of the piece.
+     * @return true if the Polygon has the Pose vertices, in any order.
+     */
+    public boolean isReachedBy(Polygon piece) {
+        VertexBuffer outline = new VertexBuffer(piece.getVertexCount());
+        for (int i = 0; i < piece.getVertexCount(); i++) outline.set(i, piece.getVertexX(i), piece.getVertexY(i));
+        return PlacementTable.sameVertices(vertices, 0, 0, outline);
+    }
+
+
+    // ***** EXTRA *****
+
+    /**
+     * Return a String with the Pose values.
+     * This method toString() is override from Object class.
+     * @return a String with the Pose values.
+     */
+    @Override
+    public String toString() {
+        return "Pose{" +
+                "piece=" + piece +
+                ", octant=" + octant +
+                ", vertices=" + vertices +
+                '}';
+    }
+
+}
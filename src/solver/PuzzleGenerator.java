@@ -0,0 +1,436 @@
+package solver;
+
+import geometry.Clipping;
+import geometry.Point;
+import geometry.VertexBuffer;
+import shapes.Polygon;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * PuzzleGenerator class : new targets made of random arrangements of the Tangram pieces.
+ * The pieces are dropped one by one on a Lattice of the unit, each one covering
+ * a free triangle next to the previous ones, so the arrangement is edge-connected
+ * and has no overlap. Arrangements with a hole or with a pinch point (two parts touching
+ * at one vertex) are rejected, the others give their outer silhouette as a Polygon.
+ * Silhouettes are deduplicated by translation and rotation (not by reflection :
+ * the parallelogram cannot be flipped), in a set shared by all the threads.
+ * Every target is solvable by construction.
+ */
+
+public class PuzzleGenerator {
+
+    // ***** NESTED CLASS *****
+
+    /**
+     * The canonical form of a silhouette : its triangles in their smallest rotation.
+     */
+    private static final class CanonicalForm {
+        private final int width;
+        private final int height;
+        private final long[] bits;
+
+        private CanonicalForm(int width, int height, long[] bits) {
+            this.width = width;
+            this.height = height;
+            this.bits = bits;
+        }
+
+        private int compareTo(CanonicalForm other) {
+            if (width != other.width) return Integer.compare(width, other.width);
+            if (height != other.height) return Integer.compare(height, other.height);
+            return Arrays.compareUnsigned(bits, other.bits);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CanonicalForm)) return false;
+            CanonicalForm other = (CanonicalForm) o;
+            return width == other.width && height == other.height && Arrays.equals(bits, other.bits);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * width + height) + Arrays.hashCode(bits);
+        }
+    }
+
+
+    // ***** CONSTANTS *****
+    public static final Color TARGET_COLOR = Color.WHITE;
+    private static final int BOARD_CELLS = 24;
+    private static final int PLACEMENT_TRIES = 64;
+    private static final int MAX_ATTEMPTS_PER_PUZZLE = 100;
+
+    // ***** FIELDS *****
+    private final Lattice lattice;
+    private final PlacementTable table;
+    private final long[] margin;
+    private final double originX;
+    private final double originY;
+    private final int step;
+    private final Set<CanonicalForm> seen;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct a PuzzleGenerator.
+     * @param pieces the Tangram pieces, each one needs a rotation on the lattice of the unit.
+     * @param unit the lattice unit, e.g. 100 for the pieces of the ModelTangram.
+     * @param step the grid step the pieces are snapped to (ViewTangram.STEP).
+     * @param center the point the targets are centered on (snapped to the step).
+     * @throws IllegalArgumentException if a piece has no rotation on the lattice.
+     */
+    public PuzzleGenerator(List<? extends Polygon> pieces, int unit, int step, Point center) {
+        int size = BOARD_CELLS * unit;
+        ArrayList<Point> corners = new ArrayList<>(Arrays.asList(
+                new Point(0, 0), new Point(size, 0), new Point(size, size), new Point(0, size)));
+        this.lattice = new Lattice(new Polygon(TARGET_COLOR, corners), unit);
+        this.table = PlacementTable.of(pieces, lattice, step);
+        if (!table.fitsAll()) throw new IllegalArgumentException("A piece does not fit the lattice of unit " + unit);
+        this.step = step;
+        this.originX = center.getX();
+        this.originY = center.getY();
+        this.seen = ConcurrentHashMap.newKeySet();
+
+        // The border cells stay free, so the outside of every arrangement is connected
+        this.margin = new long[lattice.getWordCount()];
+        for (int row = 0; row < BOARD_CELLS; row++) {
+            for (int col = 0; col < BOARD_CELLS; col++) {
+                if (row > 0 && col > 0 && row < BOARD_CELLS - 1 && col < BOARD_CELLS - 1) continue;
+                for (int q = 0; q < 4; q++) set(margin, lattice.index(col, row, q));
+            }
+        }
+    }
+
+
+    // ***** GETTERS *****
+
+    /**
+     * Get the number of distinct targets generated.
+     * @return the number of distinct silhouettes.
+     */
+    public int getDistinctCount() { return seen.size(); }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Generate distinct targets in parallel on the common ForkJoinPool.
+     * @param count the number of targets.
+     * @param seed the seed of the random arrangements.
+     * @return a List of new Polygon targets, smaller than count if the attempts ran out.
+     */
+    public List<Polygon> generate(int count, long seed) {
+        Queue<Polygon> targets = new ConcurrentLinkedQueue<>();
+        AtomicLong produced = new AtomicLong();
+        AtomicLong attempts = new AtomicLong((long) count * MAX_ATTEMPTS_PER_PUZZLE);
+        int workers = ForkJoinPool.getCommonPoolParallelism();
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[workers];
+        for (int w = 0; w < workers; w++) randoms[w] = root.split();
+        IntStream.range(0, workers).parallel().forEach(w -> {
+            while (produced.get() < count && attempts.getAndDecrement() > 0) {
+                Polygon target = next(randoms[w]);
+                if (target != null && produced.getAndIncrement() < count) targets.add(target);
+            }
+        });
+        return new ArrayList<>(targets);
+    }
+
+    /**
+     * Try to generate one new target.
+     * @param random the random generator of the calling thread.
+     * @return a new Polygon target, or null if the arrangement was rejected or already generated.
+     */
+    public Polygon next(SplittableRandom random) {
+        long[] shape = arrange(random);
+        if (shape == null || hasHole(shape) || hasPinch(shape)) return null;
+        if (!seen.add(canonicalForm(shape))) return null;
+        return silhouette(shape);
+    }
+
+    /**
+     * Drop the pieces in a random order, each one on a free triangle next to the arrangement.
+     * @return the covered triangles, or null if a piece found no place.
+     */
+    private long[] arrange(SplittableRandom random) {
+        int n = table.getPieceCount();
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        long[] shape = new long[margin.length];
+        long[] blocked = margin.clone();
+        List<Integer> frontier = new ArrayList<>();
+
+        for (int k = 0; k < n; k++) {
+            Orientation[] orientations = table.orientationsOf(table.getType(order[k]));
+            int cell = -1;
+            Orientation chosen = null;
+            for (int t = 0; t < PLACEMENT_TRIES && chosen == null; t++) {
+                Orientation orientation = orientations[random.nextInt(orientations.length)];
+                if (k == 0) {
+                    int corner = (BOARD_CELLS - orientation.width) / 2;
+                    cell = lattice.index(corner + orientation.anchorCol, corner + orientation.anchorRow, orientation.anchorQ);
+                } else {
+                    // Cover a free triangle next to the arrangement with a random triangle of the piece
+                    int free = frontier.get(random.nextInt(frontier.size()));
+                    cell = free - orientation.offsets[random.nextInt(orientation.offsets.length)];
+                }
+                if (cell >= 0 && cell < lattice.size() && orientation.canPlace(lattice, blocked, cell)) chosen = orientation;
+            }
+            if (chosen == null) return null;
+            for (int offset : chosen.offsets) {
+                int i = cell + offset;
+                set(shape, i);
+                set(blocked, i);
+            }
+            frontier.clear();
+            for (int i = 0; i < lattice.size(); i++) {
+                if (isSet(blocked, i)) continue;
+                for (int e = 0; e < 3; e++) {
+                    int j = neighbour(i, e);
+                    if (j >= 0 && isSet(shape, j)) {
+                        frontier.add(i);
+                        break;
+                    }
+                }
+            }
+            if (frontier.isEmpty() && k < n - 1) return null;
+        }
+        return shape;
+    }
+
+    /**
+     * Check if some free triangles cannot reach the border through free triangles.
+     */
+    private boolean hasHole(long[] shape) {
+        long[] reached = shape.clone();
+        int[] stack = new int[lattice.size()];
+        int top = 0;
+        stack[top++] = 0;
+        set(reached, 0);
+        while (top > 0) {
+            int i = stack[--top];
+            for (int e = 0; e < 3; e++) {
+                int j = neighbour(i, e);
+                if (j >= 0 && !isSet(reached, j)) {
+                    set(reached, j);
+                    stack[top++] = j;
+                }
+            }
+        }
+        for (int i = 0; i < lattice.size(); i++) {
+            if (!isSet(reached, i)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Check if the silhouette touches itself at a vertex : around a cell center or corner,
+     * the covered triangles must form a single run.
+     */
+    private boolean hasPinch(long[] shape) {
+        int[] around = new int[8];
+        for (int row = 1; row < BOARD_CELLS - 1; row++) {
+            for (int col = 1; col < BOARD_CELLS - 1; col++) {
+                // Cell center
+                for (int q = 0; q < 4; q++) around[q] = lattice.index(col, row, q);
+                if (runs(shape, around, 4) > 1) return true;
+                // Top left corner, clockwise from the north
+                around[0] = lattice.index(col, row - 1, Lattice.LEFT);
+                around[1] = lattice.index(col, row - 1, Lattice.BOTTOM);
+                around[2] = lattice.index(col, row, Lattice.TOP);
+                around[3] = lattice.index(col, row, Lattice.LEFT);
+                around[4] = lattice.index(col - 1, row, Lattice.RIGHT);
+                around[5] = lattice.index(col - 1, row, Lattice.TOP);
+                around[6] = lattice.index(col - 1, row - 1, Lattice.BOTTOM);
+                around[7] = lattice.index(col - 1, row - 1, Lattice.RIGHT);
+                if (runs(shape, around, 8) > 1) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Count the runs of covered triangles in a cyclic sequence.
+     */
+    private static int runs(long[] shape, int[] around, int count) {
+        int runs = 0;
+        for (int k = 0; k < count; k++) {
+            int previous = around[k == 0 ? count - 1 : k - 1];
+            if (isSet(shape, around[k]) && !isSet(shape, previous)) runs++;
+        }
+        return runs;
+    }
+
+    /**
+     * Compute the canonical form of a silhouette : the smallest of its 4 rotations,
+     * moved to the origin.
+     */
+    private CanonicalForm canonicalForm(long[] shape) {
+        int minCol = BOARD_CELLS, minRow = BOARD_CELLS, maxCol = 0, maxRow = 0;
+        List<int[]> cells = new ArrayList<>();
+        for (int i = 0; i < lattice.size(); i++) {
+            if (!isSet(shape, i)) continue;
+            int col = (i >> 2) % BOARD_CELLS;
+            int row = (i >> 2) / BOARD_CELLS;
+            cells.add(new int[]{col, row, i & 3});
+            minCol = Math.min(minCol, col);
+            minRow = Math.min(minRow, row);
+            maxCol = Math.max(maxCol, col);
+            maxRow = Math.max(maxRow, row);
+        }
+        int width = maxCol - minCol + 1;
+        int height = maxRow - minRow + 1;
+        for (int[] cell : cells) {
+            cell[0] -= minCol;
+            cell[1] -= minRow;
+        }
+        CanonicalForm best = null;
+        for (int r = 0; r < 4; r++) {
+            long[] bits = new long[(width * height * 4 + 63) >> 6];
+            for (int[] cell : cells) set(bits, ((cell[1] * width) + cell[0]) * 4 + cell[2]);
+            CanonicalForm form = new CanonicalForm(width, height, bits);
+            if (best == null || form.compareTo(best) < 0) best = form;
+            // Rotate by 90 degrees clockwise
+            for (int[] cell : cells) {
+                int col = cell[0];
+                cell[0] = height - 1 - cell[1];
+                cell[1] = col;
+                cell[2] = (cell[2] + 1) & 3;
+            }
+            int swap = width;
+            width = height;
+            height = swap;
+        }
+        return best;
+    }
+
+    /**
+     * Trace the outer boundary of a silhouette without hole nor pinch :
+     * the triangle edges between a covered and a free triangle, in the triangles
+     * clockwise order, form one cycle. Collinear vertices are removed.
+     * The coordinates are in half units until the Polygon is built.
+     */
+    private Polygon silhouette(long[] shape) {
+        int side = 2 * BOARD_CELLS + 1;
+        int[] next = new int[side * side];
+        Arrays.fill(next, -1);
+        int edges = 0;
+        int start = -1;
+        int[] corners = new int[5];
+        for (int i = 0; i < lattice.size(); i++) {
+            if (!isSet(shape, i)) continue;
+            int col = (i >> 2) % BOARD_CELLS;
+            int row = (i >> 2) / BOARD_CELLS;
+            int x = 2 * col, y = 2 * row;
+            // Top left, top right, bottom right, bottom left, center
+            corners[0] = x * side + y;
+            corners[1] = (x + 2) * side + y;
+            corners[2] = (x + 2) * side + y + 2;
+            corners[3] = x * side + y + 2;
+            corners[4] = (x + 1) * side + y + 1;
+            int q = i & 3;
+            int[] triangle = {corners[q], corners[(q + 1) & 3], corners[4]};
+            for (int e = 0; e < 3; e++) {
+                int j = neighbour(i, e);
+                if (j >= 0 && isSet(shape, j)) continue;
+                next[triangle[e]] = triangle[(e + 1) % 3];
+                start = triangle[e];
+                edges++;
+            }
+        }
+
+        // Walk the cycle, keeping the vertices where the direction changes
+        List<int[]> vertices = new ArrayList<>();
+        int walked = 0;
+        int current = start;
+        do {
+            int previous = current;
+            current = next[current];
+            int following = next[current];
+            if (following < 0) return null;
+            int dx1 = current / side - previous / side, dy1 = current % side - previous % side;
+            int dx2 = following / side - current / side, dy2 = following % side - current % side;
+            if (dx1 * dy2 - dy1 * dx2 != 0) vertices.add(new int[]{current / side, current % side});
+            walked++;
+        } while (current != start && walked <= edges);
+        if (walked != edges) return null;
+
+        // Center the silhouette on the grid
+        int minX = side, minY = side, maxX = 0, maxY = 0;
+        for (int[] v : vertices) {
+            minX = Math.min(minX, v[0]);
+            minY = Math.min(minY, v[1]);
+            maxX = Math.max(maxX, v[0]);
+            maxY = Math.max(maxY, v[1]);
+        }
+        double half = lattice.getUnit() / 2.0;
+        double dx = Math.round((originX - (maxX - minX) * half / 2) / step) * step;
+        double dy = Math.round((originY - (maxY - minY) * half / 2) / step) * step;
+        ArrayList<Point> points = new ArrayList<>();
+        VertexBuffer outline = new VertexBuffer(vertices.size());
+        for (int k = 0; k < vertices.size(); k++) {
+            Point point = new Point(dx + (vertices.get(k)[0] - minX) * half, dy + (vertices.get(k)[1] - minY) * half);
+            points.add(point);
+            outline.set(k, point.getX(), point.getY());
+        }
+        // The silhouette must have the pieces area
+        double cellArea = half * half;
+        if (Math.abs(Clipping.area(outline) - table.getCells() * cellArea) > cellArea / 2) return null;
+        return new Polygon(TARGET_COLOR, points);
+    }
+
+    /**
+     * Get the triangle across an edge of a triangle, in its clockwise order :
+     * edge 0 is the cell side, edges 1 and 2 are the half diagonals.
+     * @return the index of the neighbour, or -1 outside the lattice.
+     */
+    private int neighbour(int i, int edge) {
+        int cell = i >> 2;
+        int q = i & 3;
+        if (edge == 1) return (cell << 2) | ((q + 1) & 3);
+        if (edge == 2) return (cell << 2) | ((q + 3) & 3);
+        int col = cell % BOARD_CELLS;
+        int row = cell / BOARD_CELLS;
+        switch (q) {
+            case Lattice.TOP: return row == 0 ? -1 : lattice.index(col, row - 1, Lattice.BOTTOM);
+            case Lattice.RIGHT: return col == BOARD_CELLS - 1 ? -1 : lattice.index(col + 1, row, Lattice.LEFT);
+            case Lattice.BOTTOM: return row == BOARD_CELLS - 1 ? -1 : lattice.index(col, row + 1, Lattice.TOP);
+            default: return col == 0 ? -1 : lattice.index(col - 1, row, Lattice.RIGHT);
+        }
+    }
+
+
+    // ***** STATIC METHODS *****
+
+    private static void set(long[] mask, int i) {
+        mask[i >> 6] |= 1L << i;
+    }
+
+    private static boolean isSet(long[] mask, int i) {
+        return (mask[i >> 6] & (1L << i)) != 0;
+    }
+
+}
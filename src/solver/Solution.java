@@ -0,0 +1,66 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * Solution class : one Pose for each placed Tangram piece, sorted by piece index.
+ * The solvers place all the pieces, an exact cover with optional pieces may not.
+ * This class is immutable.
+ */
+
+public class Solution {
+
+    // ***** FIELDS *****
+    private final List<Pose> poses;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct a Solution.
+     * @param poses the poses, sorted by piece index (copied).
+     */
+    public Solution(List<Pose> poses) {
+        this.poses = Collections.unmodifiableList(new ArrayList<>(poses));
+    }
+
+
+    // ***** GETTERS *****
+
+    /**
+     * Get the poses of the Solution.
+     * @return an unmodifiable List of Pose, sorted by piece index.
+     */
+    public List<Pose> getPoses() { return poses; }
+
+    /**
+     * Get the Pose of a piece.
+     * @param piece the index of the piece in the solver piece list.
+     * @return the Pose of the piece, or null if the piece is not placed.
+     */
+    public Pose getPose(int piece) {
+        for (Pose pose : poses) {
+            if (pose.getPiece() == piece) return pose;
+        }
+        return null;
+    }
+
+
+    // ***** EXTRA *****
+
+    /**
+     * Return a String with the Solution poses.
+     * This method toString() is override from Object class.
+     * @return a String with the Solution poses.
+     */
+    @Override
+    public String toString() {
+        return "Solution" + poses;
+    }
+
+}
@@ -0,0 +1,121 @@
+package solver;
+
+import shapes.Polygon;
+import shapes.Shape;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * SolutionEnumerator class : all the Solutions of a target as a lazy Stream
+ * of SolutionRecord objects. Nothing is searched before a record is asked,
+ * and only the search stack is kept in memory, so the consumer sets the pace.
+ * The Stream can run in parallel() (the search splits its lowest frame)
+ * and stops when cancel() is called.
+ * Solutions are enumerated on the biggest lattice unit where the pieces fit,
+ * one for each class of Solutions equivalent by a target symmetry
+ * or by exchanging identical pieces (see SymmetryAnalyzer).
+ */
+
+public class SolutionEnumerator {
+
+    // ***** FIELDS *****
+    private final PlacementTable table;
+    private final Lattice lattice;
+    private final AtomicBoolean cancelled;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct a SolutionEnumerator.
+     * A target which is not a Polygon, or which the pieces cannot fit, has no Solution.
+     * @param pieces the Tangram pieces, the records use the same indexes.
+     * @param target the Shape to fill (e.g. a shape to fill of the ModelTangram).
+     * @param step the grid step the pieces are snapped to (ViewTangram.STEP).
+     */
+    public SolutionEnumerator(List<? extends Polygon> pieces, Shape target, int step) {
+        PlacementTable foundTable = null;
+        Lattice foundLattice = null;
+        if (target instanceof Polygon) {
+            Polygon polygon = (Polygon) target;
+            for (int unit : Lattice.candidateUnits(polygon, step)) {
+                Lattice candidate = new Lattice(polygon, unit);
+                PlacementTable candidateTable = PlacementTable.of(pieces, candidate, step);
+                if (candidateTable.isFeasible(candidate)) {
+                    foundTable = candidateTable;
+                    foundLattice = candidate;
+                    break;
+                }
+            }
+        }
+        this.table = foundTable;
+        this.lattice = foundLattice;
+        this.cancelled = new AtomicBoolean();
+    }
+
+
+    // ***** GETTERS *****
+
+    /**
+     * Get the Lattice of the enumeration.
+     * @return the Lattice, or null if the target has no Solution.
+     */
+    public Lattice getLattice() { return lattice; }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Get a new Spliterator over the Solutions, starting from an empty board.
+     * @return a new Spliterator of SolutionRecord.
+     */
+    public Spliterator<SolutionRecord> spliterator() {
+        if (table == null) return Spliterators.emptySpliterator();
+        return new SolutionSpliterator(table, lattice, new SymmetryAnalyzer(table, lattice), cancelled);
+    }
+
+    /**
+     * Get a new lazy Stream over the Solutions.
+     * @return a sequential Stream of SolutionRecord, parallel() can be called on it.
+     */
+    public Stream<SolutionRecord> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Get a new lazy Stream over all the Solutions on the board : the Solutions which are
+     * images of each other by a target symmetry are all given (they put the pieces
+     * at different places), the identical pieces are still exchanged only once.
+     * @return a sequential Stream of SolutionRecord, parallel() can be called on it.
+     */
+    public Stream<SolutionRecord> streamAll() {
+        if (table == null) return Stream.empty();
+        SymmetryAnalyzer symmetry = new SymmetryAnalyzer(table, lattice, false);
+        return StreamSupport.stream(new SolutionSpliterator(table, lattice, symmetry, cancelled), false);
+    }
+
+    /**
+     * Stop all the Streams and Spliterators of the enumeration :
+     * they do not give any other SolutionRecord.
+     */
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    /**
+     * Check if the enumeration was cancelled.
+     * @return true if cancel() was called.
+     */
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+}
@@ -0,0 +1,128 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * SolutionRecord class : a compact Solution, one int per piece
+ * packing the Orientation index and the lattice offset of the piece.
+ * The PlacementTable and the Lattice are shared by all the records
+ * of an enumeration, so a record only costs its int array.
+ * This class is immutable.
+ */
+
+public final class SolutionRecord {
+
+    // ***** CONSTANTS *****
+    private static final int ORIENTATION_BITS = 3;
+    private static final int OFFSET_BITS = 14;
+    private static final int OFFSET_MASK = (1 << OFFSET_BITS) - 1;
+
+    // ***** FIELDS *****
+    private final PlacementTable table;
+    private final Lattice lattice;
+    private final int[] packed;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct a SolutionRecord.
+     * @param table the PlacementTable of the pieces.
+     * @param lattice the Lattice of the target.
+     * @param packed one packed placement per piece (not copied).
+     */
+    SolutionRecord(PlacementTable table, Lattice lattice, int[] packed) {
+        this.table = table;
+        this.lattice = lattice;
+        this.packed = packed;
+    }
+
+
+    // ***** STATIC METHODS *****
+
+    /**
+     * Pack the placement of a piece.
+     * @param o the index of the Orientation of the piece type.
+     * @param col the lattice column of the Orientation corner.
+     * @param row the lattice row of the Orientation corner.
+     * @return the packed placement.
+     */
+    static int pack(int o, int col, int row) {
+        return (((row << OFFSET_BITS) | col) << ORIENTATION_BITS) | o;
+    }
+
+
+    // ***** GETTERS *****
+
+    /**
+     * Get the number of pieces.
+     * @return the number of pieces.
+     */
+    public int getPieceCount() { return packed.length; }
+
+    /**
+     * Get the Orientation index of a piece.
+     * @param piece the index of the piece.
+     * @return the index of the Orientation of the piece type.
+     */
+    public int getOrientation(int piece) { return packed[piece] & ((1 << ORIENTATION_BITS) - 1); }
+
+    /**
+     * Get the lattice column of a piece Orientation corner.
+     * @param piece the index of the piece.
+     * @return the lattice column.
+     */
+    public int getCol(int piece) { return (packed[piece] >>> ORIENTATION_BITS) & OFFSET_MASK; }
+
+    /**
+     * Get the lattice row of a piece Orientation corner.
+     * @param piece the index of the piece.
+     * @return the lattice row.
+     */
+    public int getRow(int piece) { return packed[piece] >>> (ORIENTATION_BITS + OFFSET_BITS); }
+
+    /**
+     * Get the Lattice of the record.
+     * @return the shared Lattice.
+     */
+    public Lattice getLattice() { return lattice; }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Expand the record to a Solution with the vertices of every piece.
+     * @return a new Solution.
+     */
+    public Solution toSolution() {
+        List<Pose> poses = new ArrayList<>();
+        for (int p = 0; p < packed.length; p++) {
+            poses.add(table.toPose(lattice, p, getOrientation(p), getCol(p), getRow(p)));
+        }
+        return new Solution(poses);
+    }
+
+
+    // ***** EXTRA *****
+
+    /**
+     * Return a String with the placement of every piece.
+     * This method toString() is override from Object class.
+     * @return a String with the placements.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("SolutionRecord{");
+        for (int p = 0; p < packed.length; p++) {
+            if (p > 0) builder.append(", ");
+            builder.append(p).append(':').append(getOrientation(p))
+                    .append('@').append(getCol(p)).append(',').append(getRow(p));
+        }
+        return builder.append('}').toString();
+    }
+
+}
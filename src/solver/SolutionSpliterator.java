@@ -0,0 +1,211 @@
+package solver;
+
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * SolutionSpliterator class : the TangramSolver search as an iterative depth-first
+ * search with an explicit stack, advanced only when the next SolutionRecord is asked.
+ * Each frame of the stack holds the smallest free triangle of its board and the list
+ * of the placements covering it (with the SymmetryAnalyzer constraints).
+ * trySplit() gives half of the untried placements of the lowest frame
+ * to a new SolutionSpliterator, which starts from a copy of the board below that frame.
+ * All the spliterators of an enumeration share a cancellation flag.
+ */
+
+final class SolutionSpliterator implements Spliterator<SolutionRecord> {
+
+    // ***** CONSTANTS *****
+    private static final int MOVE_BITS = 3;
+
+    // ***** FIELDS *****
+    private final PlacementTable table;
+    private final Lattice lattice;
+    private final SymmetryAnalyzer symmetry;
+    private final AtomicBoolean cancelled;
+    private final long[] board;
+    private int used;
+    private int depth;
+    private final int[] cells;
+    private final int[][] moves;
+    private final int[] next;
+    private final int[] end;
+    private final int[] current;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct a SolutionSpliterator on an empty board.
+     * @param table the PlacementTable of the pieces.
+     * @param lattice the Lattice of the target.
+     * @param symmetry the symmetry constraints of the search.
+     * @param cancelled the shared cancellation flag.
+     */
+    SolutionSpliterator(PlacementTable table, Lattice lattice, SymmetryAnalyzer symmetry, AtomicBoolean cancelled) {
+        this.table = table;
+        this.lattice = lattice;
+        this.symmetry = symmetry;
+        this.cancelled = cancelled;
+        this.board = lattice.newBoard();
+        int frames = table.getPieceCount() + 1;
+        this.cells = new int[frames];
+        this.moves = new int[frames][];
+        this.next = new int[frames];
+        this.end = new int[frames];
+        this.current = new int[frames];
+        int cell = Lattice.firstFree(board);
+        if (cell >= 0) push(cell);
+    }
+
+    /**
+     * Construct a SolutionSpliterator for a part of the frame k of another one.
+     * The frames below k are copied as exhausted frames with their current placement.
+     */
+    private SolutionSpliterator(SolutionSpliterator other, int k, int from, int to) {
+        this.table = other.table;
+        this.lattice = other.lattice;
+        this.symmetry = other.symmetry;
+        this.cancelled = other.cancelled;
+        this.board = lattice.newBoard();
+        int frames = other.cells.length;
+        this.cells = new int[frames];
+        this.moves = new int[frames][];
+        this.next = new int[frames];
+        this.end = new int[frames];
+        this.current = new int[frames];
+        for (int i = 0; i < k; i++) {
+            cells[i] = other.cells[i];
+            moves[i] = other.moves[i];
+            next[i] = other.end[i];
+            end[i] = other.end[i];
+            current[i] = other.current[i];
+            apply(cells[i], current[i]);
+        }
+        cells[k] = other.cells[k];
+        moves[k] = other.moves[k];
+        next[k] = from;
+        end[k] = to;
+        current[k] = -1;
+        depth = k + 1;
+    }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Search the next Solution and give it to the action.
+     * @param action the Consumer of the SolutionRecord.
+     * @return false if the search is over or cancelled.
+     */
+    @Override
+    public boolean tryAdvance(Consumer<? super SolutionRecord> action) {
+        while (depth > 0 && !cancelled.get()) {
+            int top = depth - 1;
+            if (current[top] >= 0) {
+                apply(cells[top], current[top]);
+                current[top] = -1;
+            }
+            if (next[top] >= end[top]) {
+                depth--;
+                continue;
+            }
+            current[top] = moves[top][next[top]++];
+            apply(cells[top], current[top]);
+            int cell = Lattice.firstFree(board);
+            if (cell >= 0) {
+                push(cell);
+            } else if (used == (1 << table.getPieceCount()) - 1) {
+                action.accept(record());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Give half of the untried placements of the lowest frame to a new SolutionSpliterator.
+     * @return the new SolutionSpliterator, or null if no frame has two untried placements.
+     */
+    @Override
+    public Spliterator<SolutionRecord> trySplit() {
+        for (int k = 0; k < depth; k++) {
+            int remaining = end[k] - next[k];
+            if (remaining < 2) continue;
+            int middle = next[k] + remaining / 2;
+            SolutionSpliterator split = new SolutionSpliterator(this, k, middle, end[k]);
+            end[k] = middle;
+            return split;
+        }
+        return null;
+    }
+
+    /**
+     * The number of Solutions is unknown.
+     * @return Long.MAX_VALUE.
+     */
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * The SolutionRecord objects are never null.
+     * @return NONNULL.
+     */
+    @Override
+    public int characteristics() {
+        return NONNULL;
+    }
+
+    /**
+     * Push a frame with all the placements covering a free triangle.
+     */
+    private void push(int cell) {
+        int count = 0;
+        int[] list = new int[table.getPieceCount() << MOVE_BITS];
+        for (int p = 0; p < table.getPieceCount(); p++) {
+            if ((used & (1 << p)) != 0 || !symmetry.mayUse(p, used)) continue;
+            Orientation[] orientations = table.orientationsOf(table.getType(p));
+            for (int o = 0; o < orientations.length; o++) {
+                if (orientations[o].canPlace(lattice, board, cell) && symmetry.isCanonical(p, o, cell)) {
+                    list[count++] = (p << MOVE_BITS) | o;
+                }
+            }
+        }
+        cells[depth] = cell;
+        moves[depth] = list;
+        next[depth] = 0;
+        end[depth] = count;
+        current[depth] = -1;
+        depth++;
+    }
+
+    /**
+     * Place (or remove) a piece Orientation on a free triangle.
+     */
+    private void apply(int cell, int move) {
+        int p = move >>> MOVE_BITS;
+        table.orientationsOf(table.getType(p))[move & ((1 << MOVE_BITS) - 1)].toggle(board, cell);
+        used ^= 1 << p;
+    }
+
+    /**
+     * Build the SolutionRecord of the current full board.
+     */
+    private SolutionRecord record() {
+        int[] packed = new int[table.getPieceCount()];
+        for (int i = 0; i < depth; i++) {
+            int p = current[i] >>> MOVE_BITS;
+            int o = current[i] & ((1 << MOVE_BITS) - 1);
+            Orientation orientation = table.orientationsOf(table.getType(p))[o];
+            packed[p] = SolutionRecord.pack(o, orientation.colAt(lattice, cells[i]), orientation.rowAt(lattice, cells[i]));
+        }
+        return new SolutionRecord(table, lattice, packed);
+    }
+
+}
@@ -0,0 +1,304 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * SymmetryAnalyzer class : the symmetries of a search on a Lattice.
+ * The target symmetries are the elements of the dihedral group D4
+ * (rotations by 90 degrees and reflections of the lattice bounding box)
+ * that map the target triangles on themselves. Only those that also map
+ * the Orientation set of every piece type on itself are kept :
+ * a reflection is dropped when a piece is chiral (the parallelogram),
+ * because the pieces cannot be flipped in the game.
+ * Two constraints give one search branch per class of equivalent boards :
+ * interchangeable pieces (same type) are used in their index order,
+ * and the placement of a designated piece must be the smallest of its images
+ * by the symmetries (by anchor triangle, then by Orientation).
+ * This class is immutable and shared between threads.
+ */
+
+public final class SymmetryAnalyzer {
+
+    // ***** CONSTANTS *****
+    public static final int IDENTITY = 0;
+    public static final int ROTATE_90 = 1;
+    public static final int ROTATE_180 = 2;
+    public static final int ROTATE_270 = 3;
+    public static final int FLIP_X = 4;
+    public static final int FLIP_Y = 5;
+    public static final int TRANSPOSE = 6;
+    public static final int ANTI_TRANSPOSE = 7;
+    private static final int ELEMENTS = 8;
+
+
+    // ***** FIELDS *****
+    private final int targetGroupOrder;
+    private final int[] symmetries;
+    private final int[][] permutations;
+    private final int[][] imageOrientations;
+    private final int[] previousTwin;
+    private final int canonicalPiece;
+    private final Orientation[] canonicalOrientations;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Analyze the symmetries of a PlacementTable on a Lattice.
+     * @param table the PlacementTable of the pieces.
+     * @param lattice the Lattice of the target, with the same unit and size as the table.
+     */
+    public SymmetryAnalyzer(PlacementTable table, Lattice lattice) {
+        this(table, lattice, true);
+    }
+
+    /**
+     * Analyze the symmetries of a PlacementTable on a Lattice, with or without
+     * the target symmetry constraint (the identical pieces are always used in order).
+     * @param table the PlacementTable of the pieces.
+     * @param lattice the Lattice of the target, with the same unit and size as the table.
+     * @param targetSymmetries false to keep the boards which are images of each other
+     *                         by a target symmetry (e.g. to list every placement on the board).
+     */
+    public SymmetryAnalyzer(PlacementTable table, Lattice lattice, boolean targetSymmetries) {
+        int cols = lattice.getCols();
+        int rows = lattice.getRows();
+
+        // Interchangeable pieces : the previous piece of the same type
+        previousTwin = new int[table.getPieceCount()];
+        int[] typeCount = new int[table.getTypeCount()];
+        for (int p = 0; p < previousTwin.length; p++) {
+            previousTwin[p] = -1;
+            for (int q = p - 1; q >= 0 && previousTwin[p] < 0; q--) {
+                if (table.getType(q) == table.getType(p)) previousTwin[p] = q;
+            }
+            typeCount[table.getType(p)]++;
+        }
+
+        // Target symmetries, then those preserving the piece set
+        List<Integer> kept = new ArrayList<>();
+        List<int[]> permutationList = new ArrayList<>();
+        int targetOrder = 0;
+        for (int g = 0; g < ELEMENTS; g++) {
+            if (swapsAxes(g) && cols != rows) continue;
+            int[] permutation = new int[lattice.size()];
+            boolean symmetric = true;
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
+                    for (int q = 0; q < 4; q++) {
+                        int index = lattice.index(col, row, q);
+                        permutation[index] = map(g, col, row, q, cols, rows);
+                        symmetric &= lattice.isTarget(index) == lattice.isTarget(permutation[index]);
+                    }
+                }
+            }
+            if (!symmetric) continue;
+            targetOrder++;
+            if (!preservesPieces(table, g) || !targetSymmetries && g != IDENTITY) continue;
+            kept.add(g);
+            permutationList.add(permutation);
+        }
+        this.targetGroupOrder = targetOrder;
+        this.symmetries = new int[kept.size()];
+        for (int i = 0; i < symmetries.length; i++) symmetries[i] = kept.get(i);
+        this.permutations = permutationList.toArray(new int[0][]);
+
+        // Designated piece : a piece alone in its type, with the most orientations
+        int best = -1;
+        for (int p = 0; p < previousTwin.length; p++) {
+            int type = table.getType(p);
+            if (typeCount[type] != 1) continue;
+            if (best < 0 || table.getOrientationCount(type) > table.getOrientationCount(table.getType(best))) best = p;
+        }
+        this.canonicalPiece = symmetries.length > 1 ? best : -1;
+        if (canonicalPiece >= 0) {
+            int type = table.getType(canonicalPiece);
+            this.canonicalOrientations = table.orientationsOf(type);
+            this.imageOrientations = new int[symmetries.length][];
+            for (int i = 0; i < symmetries.length; i++) {
+                imageOrientations[i] = orientationImages(canonicalOrientations, symmetries[i]);
+            }
+        } else {
+            this.canonicalOrientations = new Orientation[0];
+            this.imageOrientations = new int[0][];
+        }
+    }
+
+
+    // ***** GETTERS *****
+
+    /**
+     * Get the number of elements of D4 mapping the target on itself.
+     * @return the order of the target symmetry group.
+     */
+    public int getTargetGroupOrder() { return targetGroupOrder; }
+
+    /**
+     * Get the number of symmetries used by the search
+     * (target symmetries preserving the piece set).
+     * @return the order of the search symmetry group, at least 1.
+     */
+    public int getGroupOrder() { return symmetries.length; }
+
+    /**
+     * Get the symmetries used by the search.
+     * @return a new array of D4 elements (IDENTITY, ROTATE_90, ...).
+     */
+    public int[] getSymmetries() { return symmetries.clone(); }
+
+    /**
+     * Get the piece whose placement must be canonical.
+     * @return the index of the piece, or -1 if the search has no symmetry.
+     */
+    public int getCanonicalPiece() { return canonicalPiece; }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Check the interchangeable pieces order : a piece can only be placed
+     * after the previous piece of the same type.
+     * @param piece the index of the piece.
+     * @param used the bit mask of the pieces already placed.
+     * @return true if the piece can be placed.
+     */
+    public boolean mayUse(int piece, int used) {
+        int twin = previousTwin[piece];
+        return twin < 0 || (used & (1 << twin)) != 0;
+    }
+
+    /**
+     * Check if a placement of a piece is allowed : always true,
+     * except for the designated piece whose placement must be
+     * the smallest of its images by the symmetries.
+     * @param piece the index of the piece.
+     * @param o the index of the Orientation of its type.
+     * @param cell the lattice triangle covered by the first triangle of the Orientation.
+     * @return true if the placement can be searched.
+     */
+    public boolean isCanonical(int piece, int o, int cell) {
+        if (piece != canonicalPiece) return true;
+        long key = (long) cell * ELEMENTS + o;
+        int[] offsets = canonicalOrientations[o].offsets;
+        for (int i = 0; i < symmetries.length; i++) {
+            if (symmetries[i] == IDENTITY) continue;
+            int anchor = Integer.MAX_VALUE;
+            for (int offset : offsets) anchor = Math.min(anchor, permutations[i][cell + offset]);
+            if ((long) anchor * ELEMENTS + imageOrientations[i][o] < key) return false;
+        }
+        return true;
+    }
+
+
+    // ***** STATIC METHODS *****
+
+    /**
+     * Check if a D4 element exchanges the x and y axes.
+     */
+    private static boolean swapsAxes(int g) {
+        return g == ROTATE_90 || g == ROTATE_270 || g == TRANSPOSE || g == ANTI_TRANSPOSE;
+    }
+
+    /**
+     * Map the x position of a point of a width * height box by a D4 element.
+     */
+    private static double mapX(int g, double x, double y, int width, int height) {
+        switch (g) {
+            case ROTATE_90: return height - y;
+            case ROTATE_180:
+            case FLIP_X: return width - x;
+            case ROTATE_270:
+            case TRANSPOSE: return y;
+            case ANTI_TRANSPOSE: return height - y;
+            default: return x;
+        }
+    }
+
+    /**
+     * Map the y position of a point of a width * height box by a D4 element.
+     */
+    private static double mapY(int g, double x, double y, int width, int height) {
+        switch (g) {
+            case ROTATE_90:
+            case TRANSPOSE: return x;
+            case ROTATE_180:
+            case FLIP_Y: return height - y;
+            case ROTATE_270:
+            case ANTI_TRANSPOSE: return width - x;
+            default: return y;
+        }
+    }
+
+    /**
+     * Map a triangle of a cols * rows grid by a D4 element.
+     * @return the index of the image triangle in the mapped grid.
+     */
+    private static int map(int g, int col, int row, int q, int cols, int rows) {
+        double x = col + Lattice.sampleX(q);
+        double y = row + Lattice.sampleY(q);
+        double mx = mapX(g, x, y, cols, rows);
+        double my = mapY(g, x, y, cols, rows);
+        int mappedCols = swapsAxes(g) ? rows : cols;
+        int mc = (int) Math.floor(mx);
+        int mr = (int) Math.floor(my);
+        return ((mr * mappedCols) + mc) * 4 + Lattice.triangleAt(mx - mc, my - mr);
+    }
+
+    /**
+     * Get the local triangles of an Orientation mapped by a D4 element, sorted.
+     */
+    private static int[] mappedShape(Orientation orientation, int g) {
+        int width = orientation.getWidth();
+        int height = orientation.getHeight();
+        int[] shape = new int[orientation.size()];
+        int k = 0;
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                for (int q = 0; q < 4; q++) {
+                    if (orientation.covers(col, row, q)) shape[k++] = map(g, col, row, q, width, height);
+                }
+            }
+        }
+        Arrays.sort(shape);
+        return shape;
+    }
+
+    /**
+     * Get the index of the image of each Orientation by a D4 element,
+     * -1 when the image is not an Orientation of the list.
+     */
+    private static int[] orientationImages(Orientation[] orientations, int g) {
+        int[][] shapes = new int[orientations.length][];
+        for (int o = 0; o < orientations.length; o++) shapes[o] = mappedShape(orientations[o], IDENTITY);
+        int[] images = new int[orientations.length];
+        for (int o = 0; o < orientations.length; o++) {
+            int[] image = mappedShape(orientations[o], g);
+            int width = swapsAxes(g) ? orientations[o].getHeight() : orientations[o].getWidth();
+            int height = swapsAxes(g) ? orientations[o].getWidth() : orientations[o].getHeight();
+            images[o] = -1;
+            for (int other = 0; other < orientations.length; other++) {
+                if (orientations[other].getWidth() == width && orientations[other].getHeight() == height
+                        && Arrays.equals(shapes[other], image)) images[o] = other;
+            }
+        }
+        return images;
+    }
+
+    /**
+     * Check if a D4 element maps the Orientation set of every piece type on itself.
+     */
+    private static boolean preservesPieces(PlacementTable table, int g) {
+        for (int type = 0; type < table.getTypeCount(); type++) {
+            for (int image : orientationImages(table.orientationsOf(type), g)) {
+                if (image < 0) return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,324 @@
+package solver;
+
+import geometry.VertexBuffer;
+import shapes.Polygon;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * TangramSolver class : finds how to fill a target silhouette with the Tangram pieces.
+ * The target is cut in a Lattice whose unit is the biggest multiple of the grid step
+ * on which the target and an Orientation of every piece fit (see PlacementTable).
+ * The search is a depth-first exact cover : the smallest free triangle of the
+ * target must be covered by the first triangle of one of the remaining orientations,
+ * which fixes the orientation offset. Orientations larger than the target are dropped,
+ * and a lattice is only searched when the pieces area equals the target area.
+ * The boards without Solution are stored by Zobrist hash in a TranspositionTable,
+ * so a board reached again with another order of the pieces is skipped.
+ * The SymmetryAnalyzer constraints keep one board of each class of boards
+ * equivalent by a target symmetry or by exchanging identical pieces.
+ * complete() is the anytime search of the hints : it keeps the pieces already
+ * on a lattice placement, stops at a deadline and can reuse earlier Solutions.
+ */
+
+public class TangramSolver {
+
+    // ***** CONSTANTS *****
+    static final int TABLE_BUCKETS_LOG2 = 16;
+    private static final long DEADLINE_CHECK_MASK = 255;
+    private static final long FREE_SEARCH_SALT = 0xC2B2AE3D27D4EB4FL;
+
+    // ***** FIELDS *****
+    private final List<VertexBuffer> pieces;
+    private final Polygon target;
+    private final int step;
+    private final TranspositionTable transpositions;
+    private Lattice lattice;
+    private PlacementTable table;
+    private Zobrist zobrist;
+    private SymmetryAnalyzer symmetry;
+    private int[] placedOrientation;
+    private int[] placedCol;
+    private int[] placedRow;
+    private long nodes;
+    private int fixedPieces;
+    private boolean canonical = true;
+    private boolean bounded;
+    private long deadline;
+    private boolean aborted;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct a TangramSolver.
+     * The pieces geometry is copied : later moves of the pieces do not change the solver.
+     * @param pieces the Tangram pieces, the poses use the same indexes.
+     * @param target the silhouette to fill.
+     * @param step the grid step the pieces are snapped to (ViewTangram.STEP).
+     */
+    public TangramSolver(List<? extends Polygon> pieces, Polygon target, int step) {
+        this(pieces, target, step, new TranspositionTable(TABLE_BUCKETS_LOG2));
+    }
+
+    /**
+     * Construct a TangramSolver sharing a TranspositionTable with other searches
+     * of the same pieces and target.
+     * @param pieces the Tangram pieces, the poses use the same indexes.
+     * @param target the silhouette to fill.
+     * @param step the grid step the pieces are snapped to (ViewTangram.STEP).
+     * @param transpositions the boards already known without Solution.
+     */
+    public TangramSolver(List<? extends Polygon> pieces, Polygon target, int step, TranspositionTable transpositions) {
+        this.pieces = outlines(pieces);
+        this.target = target;
+        this.step = step;
+        this.transpositions = transpositions;
+    }
+
+
+    // ***** GETTERS *****
+
+    /**
+     * Get the Lattice of the last search.
+     * @return the Lattice used by the last solve() call, or null.
+     */
+    public Lattice getLattice() { return lattice; }
+
+    /**
+     * Get the number of search nodes visited by the last search.
+     * @return the number of nodes.
+     */
+    public long getNodeCount() { return nodes; }
+
+    /**
+     * Get the pieces kept at their position by the last complete() call.
+     * @return the bit mask of the pieces, zero if the Solution had to move all of them.
+     */
+    public int getFixedPieces() { return fixedPieces; }
+
+    /**
+     * Check if the last search stopped before its end (deadline or interrupt).
+     * @return true if the last search was aborted.
+     */
+    public boolean isAborted() { return aborted; }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Search a Solution, trying the lattice units from the biggest to the smallest.
+     * @return the first Solution found, or null if the pieces cannot fill the target.
+     */
+    public Solution solve() {
+        nodes = 0;
+        fixedPieces = 0;
+        aborted = false;
+        for (int unit : Lattice.candidateUnits(target, step)) {
+            lattice = new Lattice(target, unit);
+            table = PlacementTable.forOutlines(pieces, lattice, step);
+            if (!table.isFeasible(lattice)) continue;
+            zobrist = Zobrist.of(table, lattice);
+            symmetry = new SymmetryAnalyzer(table, lattice);
+            placedOrientation = new int[pieces.size()];
+            placedCol = new int[pieces.size()];
+            placedRow = new int[pieces.size()];
+            if (search(lattice.newBoard(), 0, rootHash(unit))) return toSolution();
+        }
+        return null;
+    }
+
+    /**
+     * Search a Solution keeping the pieces which are already on a placement
+     * of the lattice (inside the target, without overlap), before a deadline.
+     * The known Solutions agreeing with these pieces are returned without search.
+     * Otherwise the search runs without the target symmetry constraint
+     * (the kept pieces may break the symmetry), and from an empty board if the kept
+     * pieces cannot be completed. The boards without Solution are stored in the
+     * TranspositionTable with another root hash, so the next calls skip them.
+     * @param budgetNanos the time budget of the search, in nanoseconds.
+     * @param known Solutions found before for the same pieces and target.
+     * @return a Solution, or null if none was found before the deadline,
+     *         if the thread was interrupted or if the pieces cannot fill the target.
+     */
+    public Solution complete(long budgetNanos, Collection<Solution> known) {
+        nodes = 0;
+        fixedPieces = 0;
+        aborted = false;
+        canonical = false;
+        bounded = true;
+        deadline = System.nanoTime() + budgetNanos;
+        try {
+            for (int unit : Lattice.candidateUnits(target, step)) {
+                lattice = new Lattice(target, unit);
+                table = PlacementTable.forOutlines(pieces, lattice, step);
+                if (!table.isFeasible(lattice)) continue;
+                zobrist = Zobrist.of(table, lattice);
+                symmetry = new SymmetryAnalyzer(table, lattice);
+                placedOrientation = new int[pieces.size()];
+                placedCol = new int[pieces.size()];
+                placedRow = new int[pieces.size()];
+                long root = rootHash(unit) ^ FREE_SEARCH_SALT;
+                long[] board = lattice.newBoard();
+                long hash = root;
+                for (int p = 0; p < pieces.size(); p++) {
+                    int[] placement = table.placementOf(lattice, p, pieces.get(p));
+                    if (placement == null) continue;
+                    int type = table.getType(p);
+                    Orientation orientation = table.getOrientation(type, placement[0]);
+                    if (placement[1] + orientation.width > lattice.getCols()
+                            || placement[2] + orientation.height > lattice.getRows()) continue;
+                    int cell = lattice.index(placement[1] + orientation.anchorCol,
+                            placement[2] + orientation.anchorRow, orientation.anchorQ);
+                    if (!orientation.canPlace(lattice, board, cell)) continue;
+                    orientation.toggle(board, cell);
+                    fixedPieces |= 1 << p;
+                    hash ^= zobrist.key(type, placement[0], cell);
+                    placedOrientation[p] = placement[0];
+                    placedCol[p] = placement[1];
+                    placedRow[p] = placement[2];
+                }
+                Solution reused = reuse(known);
+                if (reused != null) return reused;
+                if (search(board, fixedPieces, hash)) return toSolution();
+                if (aborted) return null;
+                if (fixedPieces != 0) {
+                    fixedPieces = 0;
+                    if (search(lattice.newBoard(), 0, root)) return toSolution();
+                    if (aborted) return null;
+                }
+            }
+            return null;
+        } finally {
+            canonical = true;
+            bounded = false;
+        }
+    }
+
+    /**
+     * Depth-first search : cover the smallest free triangle with one Orientation
+     * of a remaining piece, then recurse.
+     * @param board the covered triangles, modified during the search and restored.
+     * @param used the bit mask of the pieces already placed.
+     * @param hash the Zobrist hash of the board.
+     * @return true if the board was filled, the poses are then in the placed arrays.
+     */
+    private boolean search(long[] board, int used, long hash) {
+        nodes++;
+        if (aborted || bounded && (nodes & DEADLINE_CHECK_MASK) == 0 && expired()) {
+            aborted = true;
+            return false;
+        }
+        int cell = Lattice.firstFree(board);
+        if (cell < 0) return used == (1 << pieces.size()) - 1;
+        if (transpositions.contains(hash)) return false;
+        for (int p = 0; p < pieces.size(); p++) {
+            if ((used & (1 << p)) != 0 || !symmetry.mayUse(p, used)) continue;
+            int type = table.getType(p);
+            Orientation[] orientations = table.orientationsOf(type);
+            for (int o = 0; o < orientations.length; o++) {
+                Orientation orientation = orientations[o];
+                if (!orientation.canPlace(lattice, board, cell)) continue;
+                if (canonical && !symmetry.isCanonical(p, o, cell)) continue;
+                orientation.toggle(board, cell);
+                placedOrientation[p] = o;
+                placedCol[p] = orientation.colAt(lattice, cell);
+                placedRow[p] = orientation.rowAt(lattice, cell);
+                if (search(board, used | (1 << p), hash ^ zobrist.key(type, o, cell))) return true;
+                orientation.toggle(board, cell);
+            }
+        }
+        // An aborted search did not try every placement : the board is not stored
+        if (!aborted) transpositions.store(hash, pieces.size() - Integer.bitCount(used));
+        return false;
+    }
+
+    /**
+     * Check if the deadline is passed or the thread interrupted.
+     */
+    private boolean expired() {
+        return System.nanoTime() - deadline > 0 || Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Find a known Solution agreeing with the fixed pieces : each fixed piece is at the Pose
+     * of a piece of its type, the other pieces get the remaining poses of their type.
+     */
+    private Solution reuse(Collection<Solution> known) {
+        int n = pieces.size();
+        for (Solution solution : known) {
+            Pose[] poses = new Pose[n];
+            boolean[] taken = new boolean[n];
+            boolean consistent = true;
+            for (int pass = 0; pass < 2 && consistent; pass++) {
+                for (int p = 0; p < n && consistent; p++) {
+                    boolean fixed = (fixedPieces & (1 << p)) != 0;
+                    if (fixed != (pass == 0)) continue;
+                    Pose current = fixed ? table.toPose(lattice, p, placedOrientation[p], placedCol[p], placedRow[p]) : null;
+                    consistent = false;
+                    for (int q = 0; q < n && !consistent; q++) {
+                        Pose pose = solution.getPose(q);
+                        if (taken[q] || pose == null || table.getType(q) != table.getType(p)) continue;
+                        if (fixed) {
+                            consistent = PlacementTable.sameVertices(pose.getVertexBuffer(), 0, 0, current.getVertexBuffer());
+                        } else {
+                            int[] placement = table.placementOf(lattice, p, pose.getVertexBuffer());
+                            if (placement != null) current = table.toPose(lattice, p, placement[0], placement[1], placement[2]);
+                            consistent = placement != null;
+                        }
+                        taken[q] = consistent;
+                    }
+                    poses[p] = current;
+                }
+            }
+            if (consistent) return new Solution(Arrays.asList(poses));
+        }
+        return null;
+    }
+
+    /**
+     * Build the Solution from the placed arrays.
+     */
+    private Solution toSolution() {
+        List<Pose> poses = new ArrayList<>();
+        for (int p = 0; p < pieces.size(); p++) {
+            poses.add(table.toPose(lattice, p, placedOrientation[p], placedCol[p], placedRow[p]));
+        }
+        return new Solution(poses);
+    }
+
+
+    // ***** STATIC METHODS *****
+
+    /**
+     * Get the hash of an empty board : it depends on the lattice unit,
+     * so the lattices of a target can share a TranspositionTable.
+     * @param unit the lattice unit.
+     * @return the hash of the empty board.
+     */
+    static long rootHash(int unit) {
+        return unit * 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * Copy the vertices of the pieces.
+     * @param pieces the Tangram pieces.
+     * @return a new List of VertexBuffer, in the same order.
+     */
+    static List<VertexBuffer> outlines(List<? extends Polygon> pieces) {
+        List<VertexBuffer> outlines = new ArrayList<>();
+        for (Polygon piece : pieces) {
+            VertexBuffer outline = new VertexBuffer(piece.getVertexCount());
+            for (int i = 0; i < piece.getVertexCount(); i++) outline.set(i, piece.getVertexX(i), piece.getVertexY(i));
+            outlines.add(outline);
+        }
+        return outlines;
+    }
+
+}
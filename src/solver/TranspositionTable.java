@@ -0,0 +1,122 @@
+package solver;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * TranspositionTable class : a bounded, lock-free set of Zobrist hashes
+ * of the partial boards whose subtree has no Solution.
+ * Entries are stored in buckets of two slots inside an AtomicLongArray :
+ * the first slot keeps the deepest subtree (most pieces left) of the current
+ * generation, the second one is always replaced.
+ * Each slot stores (hash XOR data, data) : a slot torn by a concurrent write
+ * does not match its hash anymore, so it is only a miss, never a wrong hit.
+ */
+
+public final class TranspositionTable {
+
+    // ***** CONSTANTS *****
+    private static final int DEPTH_BITS = 8;
+    private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+
+    // ***** FIELDS *****
+    private final AtomicLongArray slots;
+    private final int bucketMask;
+    private final LongAdder hits;
+    private volatile int generation;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct an empty TranspositionTable.
+     * @param bucketsLog2 the base 2 logarithm of the number of buckets (2 entries each).
+     */
+    public TranspositionTable(int bucketsLog2) {
+        this.slots = new AtomicLongArray(4 << bucketsLog2);
+        this.bucketMask = (1 << bucketsLog2) - 1;
+        this.hits = new LongAdder();
+        this.generation = 1;
+    }
+
+
+    // ***** GETTERS *****
+
+    /**
+     * Get the number of successful probes since the construction.
+     * @return the number of hits.
+     */
+    public long getHits() { return hits.sum(); }
+
+    /**
+     * Get the number of entries of the table.
+     * @return the capacity.
+     */
+    public int capacity() { return slots.length() / 2; }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Check if a board is known to have no Solution.
+     * @param hash the Zobrist hash of the board.
+     * @return true if the subtree of the board can be skipped.
+     */
+    public boolean contains(long hash) {
+        int base = bucket(hash);
+        for (int slot = base; slot < base + 4; slot += 2) {
+            long data = slots.get(slot + 1);
+            if (data != 0 && (slots.get(slot) ^ data) == hash) {
+                hits.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Store a board whose subtree has no Solution.
+     * @param hash the Zobrist hash of the board.
+     * @param depth the number of pieces left to place, deeper subtrees are kept longer.
+     */
+    public void store(long hash, int depth) {
+        long data = ((long) generation << DEPTH_BITS) | (depth & DEPTH_MASK);
+        int base = bucket(hash);
+        long firstData = slots.get(base + 1);
+        boolean replaceFirst = firstData == 0
+                || (slots.get(base) ^ firstData) == hash
+                || (firstData >>> DEPTH_BITS) != generation
+                || (firstData & DEPTH_MASK) <= depth;
+        int slot = replaceFirst ? base : base + 2;
+        // Data first : a reader seeing the new data with the old hash gets a miss
+        slots.set(slot + 1, data);
+        slots.set(slot, hash ^ data);
+    }
+
+    /**
+     * Start a new generation : the entries of the previous ones
+     * are replaced first, they are still valid hits until then.
+     */
+    public void newGeneration() {
+        generation = (generation + 1) & 0xFFFFFF;
+        if (generation == 0) generation = 1;
+    }
+
+    /**
+     * Remove all the entries, e.g. when the target changes.
+     */
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) slots.set(i, 0);
+    }
+
+    /**
+     * Get the index of the first slot of the bucket of a hash.
+     */
+    private int bucket(long hash) {
+        return ((int) (hash ^ (hash >>> 32)) & bucketMask) << 2;
+    }
+
+}
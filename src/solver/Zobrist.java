@@ -0,0 +1,69 @@
+package solver;
+
+import java.util.SplittableRandom;
+
+/**
+ * ALL RIGHTS RESERVED :
+ * UNIVERSITY OF FRIBOURG - SWISS
+
+ * Zobrist class : random 64-bit keys for each (piece type, orientation, lattice cell)
+ * placement. The hash of a partial board is the XOR of the keys of its placements,
+ * so it is updated with one XOR when a piece is placed or removed, and it does not
+ * depend on the order of the placements nor on which of two identical pieces is used.
+ * The keys are generated from a fixed seed : the same lattice always gives the same hashes.
+ * This class is immutable and shared between threads.
+ */
+
+public final class Zobrist {
+
+    // ***** CONSTANTS *****
+    private static final long SEED = 0x5DEECE66DL;
+    private static final int ORIENTATIONS = 8;
+
+    // ***** FIELDS *****
+    private final int cells;
+    private final long[] keys;
+
+
+    // ***** CONSTRUCTOR *****
+
+    /**
+     * Construct the Zobrist keys of a lattice.
+     * @param types the number of piece types.
+     * @param cells the number of triangles of the lattice.
+     */
+    public Zobrist(int types, int cells) {
+        this.cells = cells;
+        this.keys = new long[types * ORIENTATIONS * cells];
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < keys.length; i++) keys[i] = random.nextLong();
+    }
+
+
+    // ***** STATIC METHODS *****
+
+    /**
+     * Construct the Zobrist keys of a PlacementTable on a Lattice.
+     * @param table the PlacementTable of the pieces.
+     * @param lattice the Lattice of the target.
+     * @return new Zobrist keys.
+     */
+    public static Zobrist of(PlacementTable table, Lattice lattice) {
+        return new Zobrist(table.getTypeCount(), lattice.size());
+    }
+
+
+    // ***** METHODS *****
+
+    /**
+     * Get the key of a placement.
+     * @param type the piece type.
+     * @param orientation the index of the Orientation of the type.
+     * @param cell the lattice triangle covered by the first triangle of the Orientation.
+     * @return the 64-bit key.
+     */
+    public long key(int type, int orientation, int cell) {
+        return keys[(type * ORIENTATIONS + orientation) * cells + cell];
+    }
+
+}